@@ -23,10 +23,13 @@
 package burstcoin.jminer;
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.plotter.Optimizer;
+import burstcoin.jminer.core.plotter.Plotter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.Banner;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -49,6 +52,18 @@ public class JMinerApplication {
         }
         properties.put("logging.level.burstcoin.jminer", CoreProperties.isDebug() ? "DEBUG" : "INFO");
 
+        if (JMinerCommandLine.isTool(args)) {
+            // plot or optimize instead of mining, without mining beans (openCL, servers), exit when done
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(Plotter.class, Optimizer.class)
+                    .bannerMode(Banner.Mode.OFF)
+                    .logStartupInfo(false)
+                    .web(false)
+                    .properties(properties)
+                    .run(args);
+            boolean success = JMinerCommandLine.runTool(context, args);
+            System.exit(SpringApplication.exit(context, () -> success ? 0 : 1));
+        }
+
         new SpringApplicationBuilder(JMinerApplication.class)
                 .bannerMode(Banner.Mode.OFF) // turn off spring boot banner
                 .logStartupInfo(false)
@@ -23,16 +23,22 @@
 package burstcoin.jminer;
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.farm.Agent;
 import burstcoin.jminer.core.network.Network;
 import burstcoin.jminer.core.network.event.NetworkLastWinnerEvent;
 import burstcoin.jminer.core.network.event.NetworkPoolInfoEvent;
 import burstcoin.jminer.core.network.event.NetworkResultConfirmedEvent;
 import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
 import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
+import burstcoin.jminer.core.plotter.Optimizer;
+import burstcoin.jminer.core.plotter.Plotter;
 import burstcoin.jminer.core.reader.event.ReaderCorruptFileEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveFinishEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveInterruptedEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveRecoveredEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveSlowEvent;
 import burstcoin.jminer.core.reader.event.ReaderProgressChangedEvent;
+import burstcoin.jminer.core.reader.util.DriveHealth;
 import burstcoin.jminer.core.round.event.RoundFinishedEvent;
 import burstcoin.jminer.core.round.event.RoundSingleResultEvent;
 import burstcoin.jminer.core.round.event.RoundSingleResultSkippedEvent;
@@ -41,12 +47,10 @@ import burstcoin.jminer.core.round.event.RoundStoppedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
 
-import java.math.BigDecimal;
-import java.math.MathContext;
-
 
 public class JMinerCommandLine implements CommandLineRunner {
     private static final Logger LOG = LoggerFactory.getLogger(JMinerCommandLine.class);
@@ -85,9 +89,66 @@ public class JMinerCommandLine implements CommandLineRunner {
         LOG.info("      mining engine: BURST-LUXE-RED2-G6JW-H4HG5");
         LOG.info("     openCL checker: BURST-QHCJ-9HB5-PTGC-5Q8J9");
 
-        Network network = context.getBean(Network.class);
-        network.checkPoolInfo();
-        network.startMining();
+        if (CoreProperties.isAgent()) {
+            // mining info comes from coordinator
+            context.getBean(Agent.class).connect();
+        } else {
+            Network network = context.getBean(Network.class);
+            network.checkPoolInfo();
+            network.startMining();
+        }
+    }
+
+    /**
+     * Check if args start a command running instead of mining.
+     *
+     * @param args the command line args
+     * @return true for plot and optimize
+     */
+    static boolean isTool(String... args) {
+        return args.length > 0 && ("plot".equals(args[0]) || "optimize".equals(args[0]));
+    }
+
+    /**
+     * Run plot or optimize command.
+     *
+     * @param context context containing plotter and optimizer
+     * @param args    the command line args
+     * @return true on success
+     */
+    static boolean runTool(ApplicationContext context, String... args) {
+        return "plot".equals(args[0]) ? plot(context, args) : optimize(context, args);
+    }
+
+    // plot <numericAccountId> <startNonce> <nonces> [plotPath]
+    private static boolean plot(ApplicationContext context, String... args) {
+        if (args.length < 4 || args.length > 5) {
+            LOG.error("usage: plot <numericAccountId> <startNonce> <nonces> [plotPath], plotPath defaults to first of 'plotPaths'.");
+            return false;
+        }
+        String directory = args.length == 5 ? args[4] : CoreProperties.getPlotPaths().isEmpty() ? null : CoreProperties.getPlotPaths().get(0);
+        try {
+            long accountId = Long.parseUnsignedLong(args[1]);
+            long startNonce = Long.parseLong(args[2]);
+            long nonces = Long.parseLong(args[3]);
+            if (directory == null || startNonce < 0 || nonces <= 0) {
+                LOG.error("plot: plotPath required, startNonce and nonces have to be positive.");
+                return false;
+            }
+            return context.getBean(Plotter.class).plot(accountId, startNonce, nonces, directory);
+        } catch (IllegalArgumentException e) {
+            LOG.error("plot: numericAccountId, startNonce and nonces have to be numeric: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // optimize <plotPath> [scratchPath]
+    private static boolean optimize(ApplicationContext context, String... args) {
+        if (args.length < 2 || args.length > 3) {
+            LOG.error("usage: optimize <plotPath> [scratchPath], new plot-files are built in scratchPath (default: plotPath).");
+            return false;
+        }
+        return context.getBean(Optimizer.class).optimize(args[1], args.length == 3 ? args[2] : null);
     }
 
     private void initApplicationListeners() {
@@ -104,6 +165,11 @@ public class JMinerCommandLine implements CommandLineRunner {
                 LOG.info("FINISH block '" + event.getBlockNumber() + "', "
                         + "best deadline '" + bestDeadline + "', "
                         + "round time '" + s + "s " + ms + "ms'");
+                if (CoreProperties.getRoundTimeBudget() > 0 && event.getCapacity() > 0) {
+                    long minedPercentage = event.getMinedCapacity() * 100 / event.getCapacity();
+                    LOG.info("      mined '" + minedPercentage + "%' of capacity within round time budget '" + CoreProperties.getRoundTimeBudget() + " ms'");
+                }
+                LOG.debug("round queue latency avg '" + event.getQueueLatencyAvg() + "us', max '" + event.getQueueLatencyMax() + "us'");
             }
         });
 
@@ -116,11 +182,7 @@ public class JMinerCommandLine implements CommandLineRunner {
                 long s = event.getElapsedTime() / 1000;
                 long ms = event.getElapsedTime() % 1000;
 
-                BigDecimal totalCapacity = new BigDecimal(event.getCapacity());
-                BigDecimal factor = BigDecimal.ONE.divide(totalCapacity, MathContext.DECIMAL32);
-                BigDecimal progress = factor.multiply(new BigDecimal(event.getCapacity() - event.getRemainingCapacity()));
-                int percentage = (int) Math.ceil(progress.doubleValue() * 100);
-                percentage = percentage > 100 ? 100 : percentage;
+                long percentage = percentage(event.getCapacity(), event.getRemainingCapacity());
 
                 String bestDeadline = Long.MAX_VALUE == event.getBestCommittedDeadline() ? "N/A" : String.valueOf(event.getBestCommittedDeadline());
                 LOG.info("STOP block '" + event.getBlockNumber() + "', " + String.valueOf(percentage) + "% done, "
@@ -159,6 +221,9 @@ public class JMinerCommandLine implements CommandLineRunner {
                 );
                 String target = event.getTargetDeadline() == Long.MAX_VALUE ? "N/A" : String.valueOf(event.getTargetDeadline());
                 LOG.info("      targetDeadline '" + target + "', " + "baseTarget '" + String.valueOf(event.getBaseTarget()) + "'");
+                if (event.getRestart() > 0) {
+                    LOG.info("      restart '" + event.getRestart() + "' of block on fork, restarts total '" + event.getTotalRestarts() + "'");
+                }
             }
         });
 
@@ -171,11 +236,7 @@ public class JMinerCommandLine implements CommandLineRunner {
                     if (event.getRemainingCapacity() < logStepCapacity * progressLogStep || event.getRemainingCapacity() == 0) {
                         progressLogStep--;
 
-                        BigDecimal totalCapacity = new BigDecimal(event.getCapacity());
-                        BigDecimal factor = BigDecimal.ONE.divide(totalCapacity, MathContext.DECIMAL32);
-                        BigDecimal progress = factor.multiply(new BigDecimal(event.getCapacity() - event.getRemainingCapacity()));
-                        int percentage = (int) Math.ceil(progress.doubleValue() * 100);
-                        percentage = percentage > 100 ? 100 : percentage;
+                        long percentage = percentage(event.getCapacity(), event.getRemainingCapacity());
 
                         // calculate capacity
                         long effMBPerSec = 0;
@@ -194,7 +255,7 @@ public class JMinerCommandLine implements CommandLineRunner {
                         long doneGB = doneBytes / SIZE_DIVISOR / SIZE_DIVISOR / SIZE_DIVISOR % SIZE_DIVISOR;
 
                         // calculate reading speed (average)
-                        long averageBytesPerMs = (doneBytes / 4096) / event.getElapsedTime();
+                        long averageBytesPerMs = (doneBytes / 4096) / Math.max(1, event.getElapsedTime());
                         long averageMBPerSec = (averageBytesPerMs * 1000) / SIZE_DIVISOR / SIZE_DIVISOR;
 
                         previousRemainingCapacity = event.getRemainingCapacity();
@@ -252,7 +313,7 @@ public class JMinerCommandLine implements CommandLineRunner {
         context.addApplicationListener(new ApplicationListener<ReaderDriveFinishEvent>() {
             @Override
             public void onApplicationEvent(ReaderDriveFinishEvent event) {
-                if (blockNumber == event.getBlockNumber()) {
+                if (CoreProperties.isShowDriveInfo() && blockNumber == event.getBlockNumber()) {
                     // calculate capacity
                     long doneBytes = event.getSize();
                     long doneTB = doneBytes / SIZE_DIVISOR / SIZE_DIVISOR / SIZE_DIVISOR / SIZE_DIVISOR;
@@ -273,6 +334,25 @@ public class JMinerCommandLine implements CommandLineRunner {
             }
         });
 
+        context.addApplicationListener(new ApplicationListener<ReaderDriveSlowEvent>() {
+            @Override
+            public void onApplicationEvent(ReaderDriveSlowEvent event) {
+                LOG.warn("slow drive '" + event.getDirectory() + "', read took '" + event.getReadTime() + " ms' "
+                        + "(latency p50 '" + event.getLatencyP50() / 1000 + " ms', p99 '" + event.getLatencyP99() / 1000 + " ms'), "
+                        + (event.isQuarantined()
+                           ? "quarantined, checked every '" + DriveHealth.RECOVERY_CHECK_INTERVAL + "' rounds."
+                           : "read last on next rounds."));
+            }
+        });
+
+        context.addApplicationListener(new ApplicationListener<ReaderDriveRecoveredEvent>() {
+            @Override
+            public void onApplicationEvent(ReaderDriveRecoveredEvent event) {
+                LOG.info("drive '" + event.getDirectory() + "' recovered "
+                        + "(latency p50 '" + event.getLatencyP50() / 1000 + " ms', p99 '" + event.getLatencyP99() / 1000 + " ms').");
+            }
+        });
+
         context.addApplicationListener(new ApplicationListener<NetworkPoolInfoEvent>() {
             @Override
             public void onApplicationEvent(NetworkPoolInfoEvent event) {
@@ -297,4 +377,10 @@ public class JMinerCommandLine implements CommandLineRunner {
         hours = hours % 24;
         return days + "d " + hours + "h " + min + "m " + sec + "s";
     }
+
+    // progress in percent, rounded up
+    private static long percentage(long capacity, long remainingCapacity) {
+        long totalCapacity = Math.max(1, capacity);
+        return Math.min(100, ((totalCapacity - remainingCapacity) * 100 + totalCapacity - 1) / totalCapacity);
+    }
 }
@@ -25,12 +25,15 @@ package burstcoin.jminer.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 
 /**
@@ -49,12 +52,30 @@ public class CoreConfig {
     }
 
     @Bean(name = "networkPool")
-    public SimpleAsyncTaskExecutor networkPool() {
-        SimpleAsyncTaskExecutor pool = new SimpleAsyncTaskExecutor();
+    public ThreadPoolTaskExecutor networkPool() {
+        // network tasks only send async requests, a few threads are enough
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(2);
+        pool.setMaxPoolSize(2);
+        pool.setQueueCapacity(256);
+        pool.setThreadNamePrefix("network-");
         pool.setThreadPriority(Thread.NORM_PRIORITY + 1);
+        pool.setDaemon(true);
+        pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         return pool;
     }
 
+    @Bean(name = "networkScheduler")
+    public ThreadPoolTaskScheduler networkScheduler() {
+        // polls, retries and recommits are scheduled instead of sleeping
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("network-scheduler-");
+        scheduler.setThreadPriority(Thread.NORM_PRIORITY + 1);
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+
     @Bean(name = "checkTaskExecutor")
     public SyncTaskExecutor taskExecutor() {
         return new SyncTaskExecutor();
@@ -68,6 +89,12 @@ public class CoreConfig {
     @Bean
     public HttpClient httpClient() {
         HttpClient client = new HttpClient();
+        // responses are handled on this bounded pool, selector included
+        QueuedThreadPool executor = new QueuedThreadPool(16, 2);
+        executor.setName("http");
+        executor.setDaemon(true);
+        client.setExecutor(executor);
+        client.setConnectTimeout(CoreProperties.getConnectionTimeout());
         try {
             client.start();
         } catch (Exception e) {
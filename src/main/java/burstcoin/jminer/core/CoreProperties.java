@@ -28,10 +28,14 @@ import org.springframework.util.StringUtils;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 public class CoreProperties {
     private static final Logger LOG = LoggerFactory.getLogger(CoreProperties.class);
@@ -42,12 +46,27 @@ public class CoreProperties {
     private static final int DEFAULT_CHUNK_PART_NONCES = 320000;
     private static final int DEFAULT_PLATFORM_ID = 0;
     private static final int DEFAULT_DEVICE_ID = 0;
+    private static final boolean DEFAULT_OCL_ZERO_COPY = true;
+    private static final String DEFAULT_OCL_PROGRAM_CACHE = "cache/ocl";
+    private static final String DEFAULT_ROUND_JOURNAL = "cache/round.journal";
+    private static final int DEFAULT_CPU_CHECKERS = 0;
+    private static final long DEFAULT_CHECKER_BATCH_NONCES = 65536;
+    private static final long DEFAULT_CHECKER_BATCH_LATENCY = 50;
+    private static final int DEFAULT_CHECKER_TOP_K = 1;
+    private static final int MAX_CHECKER_TOP_K = 8;
     private static final boolean DEFAULT_POOL_MINING = true;
     private static final long DEFAULT_TARGET_DEADLINE = Long.MAX_VALUE;
     private static final String DEFAULT_SOLO_SERVER = "http://localhost:8125";
     private static final int DEFAULT_READ_PROGRESS_PER_ROUND = 9;
+    private static final long DEFAULT_READER_PROGRESS_INTERVAL = 250;
     private static final int DEFAULT_REFRESH_INTERVAL = 2000;
     private static final int DEFAULT_CONNECTION_TIMEOUT = 6000;
+    private static final boolean DEFAULT_ADAPTIVE_REFRESH = false;
+    private static final long DEFAULT_MIN_REFRESH_INTERVAL = 1000;
+    private static final long DEFAULT_MAX_REFRESH_INTERVAL = 10000;
+    private static final boolean DEFAULT_LONG_POLLING = false;
+    private static final long DEFAULT_LONG_POLL_TIMEOUT = 60000;
+    private static final long DEFAULT_KEEP_ALIVE_INTERVAL = 20000;
     private static final int DEFAULT_WINNER_RETRIES_ON_ASYNC = 4;
     private static final int DEFAULT_WINNER_RETRY_INTERVAL_IN_MS = 500;
     private static final boolean DEFAULT_SCAN_PATHS_EVERY_ROUND = true;
@@ -57,10 +76,25 @@ public class CoreProperties {
     private static final boolean DEFAULT_RECOMMIT_DEADLINES = false;
     private static final boolean DEFAULT_SHOW_SKIPPED_DEADLINES = true;
     private static final int DEFAULT_READER_THREADS = 0;
+    private static final long DEFAULT_ROUND_TIME_BUDGET = 0;
+    private static final long DEFAULT_DRIVE_SLOW_READ_TIME = 30000;
     private static final boolean DEFAULT_DEBUG = false;
     private static final boolean DEFAULT_TRIGGER_SERVER = false;
     private static final boolean DEFAULT_WRITE_LOG_FILE = false;
     private static final String DEFAULT_LOG_FILE_PATH = "log/jminer.log.txt";
+    private static final boolean DEFAULT_PROXY = false;
+    private static final int DEFAULT_PROXY_PORT = 8126;
+    private static final boolean DEFAULT_COORDINATOR = false;
+    private static final int DEFAULT_COORDINATOR_PORT = 8127;
+    private static final int DEFAULT_PLOTTER_THREADS = 0;
+    private static final int DEFAULT_PLOTTER_MEMORY = 1024;
+    private static final boolean DEFAULT_SIMULATOR = false;
+    private static final int DEFAULT_SIMULATOR_PORT = 8124;
+    private static final List<String> DEFAULT_SIMULATOR_BLOCK_TIMES = Collections.singletonList("240000");
+    private static final long DEFAULT_SIMULATOR_BASE_TARGET = 18325193796L;
+    private static final long DEFAULT_SIMULATOR_SEED = 0;
+    private static final long DEFAULT_SIMULATOR_LATENCY = 0;
+    private static final int DEFAULT_SIMULATOR_ERROR_PERCENT = 0;
 
     static {
         try {
@@ -71,8 +105,15 @@ public class CoreProperties {
     }
 
     private static Integer readProgressPerRound;
+    private static Long readerProgressInterval;
     private static Long refreshInterval;
+    private static Boolean adaptiveRefresh;
+    private static Long minRefreshInterval;
+    private static Long maxRefreshInterval;
     private static Long connectionTimeout;
+    private static Boolean longPolling;
+    private static Long longPollTimeout;
+    private static Long keepAliveInterval;
     private static Integer winnerRetriesOnAsync;
     private static Long winnerRetryIntervalInMs;
     private static Boolean scanPathsEveryRound;
@@ -82,21 +123,49 @@ public class CoreProperties {
     private static Long chunkPartNonces;
     private static Integer deviceId;
     private static Integer platformId;
+    private static Boolean oclZeroCopy;
+    private static String oclProgramCache;
+    private static String roundJournal;
+    private static List<String> oclDevices;
+    private static Integer cpuCheckers;
+    private static Long checkerBatchNonces;
+    private static Long checkerBatchLatency;
+    private static Integer checkerTopK;
     private static String walletServer;
     private static String numericAccountId;
     private static String soloServer;
     private static String passPhrase;
     private static String poolServer;
+    private static List<String> poolFailoverServers;
+    private static List<String> soloFailoverServers;
+    private static List<MiningAccount> miningAccounts;
     private static Boolean byteUnitDecimal;
     private static Boolean listPlotFiles;
     private static Boolean showDriveInfo;
     private static Boolean recommitDeadlines;
     private static Boolean showSkippedDeadlines;
     private static Integer readerThreads;
+    private static Long roundTimeBudget;
+    private static Long driveSlowReadTime;
     private static Boolean writeLogFile;
     private static Boolean triggerServer;
     private static Boolean debug;
     private static String logFilePath;
+    private static Boolean proxy;
+    private static Integer proxyPort;
+    private static Boolean coordinator;
+    private static Integer coordinatorPort;
+    private static String coordinatorServer;
+    private static String agentName;
+    private static Integer plotterThreads;
+    private static Integer plotterMemory;
+    private static Boolean simulator;
+    private static Integer simulatorPort;
+    private static List<Long> simulatorBlockTimes;
+    private static Long simulatorBaseTarget;
+    private static Long simulatorSeed;
+    private static Long simulatorLatency;
+    private static Integer simulatorErrorPercent;
 
     private CoreProperties() {
         // no instances
@@ -114,6 +183,18 @@ public class CoreProperties {
         return readProgressPerRound;
     }
 
+    /**
+     * Gets interval in ms the reader progress is sampled.
+     *
+     * @return the reader progress interval
+     */
+    public static long getReaderProgressInterval() {
+        if (readerProgressInterval == null) {
+            readerProgressInterval = asLong("readerProgressInterval", DEFAULT_READER_PROGRESS_INTERVAL);
+        }
+        return readerProgressInterval;
+    }
+
     /**
      * Gets refresh interval.
      *
@@ -126,6 +207,42 @@ public class CoreProperties {
         return refreshInterval;
     }
 
+    /**
+     * Is adaptive refresh, mining info is polled faster the closer the expected next block gets.
+     *
+     * @return the boolean
+     */
+    public static boolean isAdaptiveRefresh() {
+        if (adaptiveRefresh == null) {
+            adaptiveRefresh = asBoolean("adaptiveRefresh", DEFAULT_ADAPTIVE_REFRESH);
+        }
+        return adaptiveRefresh;
+    }
+
+    /**
+     * Gets refresh interval used at expected block time, on adaptive refresh.
+     *
+     * @return the min refresh interval
+     */
+    public static long getMinRefreshInterval() {
+        if (minRefreshInterval == null) {
+            minRefreshInterval = asLong("minRefreshInterval", DEFAULT_MIN_REFRESH_INTERVAL);
+        }
+        return minRefreshInterval;
+    }
+
+    /**
+     * Gets refresh interval used right after a new block, on adaptive refresh.
+     *
+     * @return the max refresh interval
+     */
+    public static long getMaxRefreshInterval() {
+        if (maxRefreshInterval == null) {
+            maxRefreshInterval = Math.max(getMinRefreshInterval(), asLong("maxRefreshInterval", DEFAULT_MAX_REFRESH_INTERVAL));
+        }
+        return maxRefreshInterval;
+    }
+
     /**
      * Gets connection timeout.
      *
@@ -138,6 +255,42 @@ public class CoreProperties {
         return connectionTimeout;
     }
 
+    /**
+     * Is long polling for mining info.
+     *
+     * @return the boolean
+     */
+    public static boolean isLongPolling() {
+        if (longPolling == null) {
+            longPolling = asBoolean("longPolling", DEFAULT_LONG_POLLING);
+        }
+        return longPolling;
+    }
+
+    /**
+     * Gets max time the server may hold a long poll request.
+     *
+     * @return the long poll timeout
+     */
+    public static long getLongPollTimeout() {
+        if (longPollTimeout == null) {
+            longPollTimeout = asLong("longPollTimeout", DEFAULT_LONG_POLL_TIMEOUT);
+        }
+        return longPollTimeout;
+    }
+
+    /**
+     * Gets interval idle submit connections are refreshed, 0 disables pinned connections.
+     *
+     * @return the keep alive interval
+     */
+    public static long getKeepAliveInterval() {
+        if (keepAliveInterval == null) {
+            keepAliveInterval = asLong("keepAliveInterval", DEFAULT_KEEP_ALIVE_INTERVAL);
+        }
+        return keepAliveInterval;
+    }
+
     /**
      * Gets winner retries on async.
      *
@@ -199,6 +352,60 @@ public class CoreProperties {
         return targetDeadline;
     }
 
+    /**
+     * Gets mining accounts, the account of 'MINING MODE' first, followed by 'additionalAccounts'.
+     *
+     * @return the mining accounts
+     */
+    public static List<MiningAccount> getMiningAccounts() {
+        if (miningAccounts == null) {
+            List<MiningAccount> accounts = new ArrayList<>();
+            if (isPoolMining()) {
+                accounts.add(new MiningAccount("primary", getNumericAccountId(), true, Collections.singletonList(getPoolServer()), null,
+                        getTargetDeadline(), true));
+            } else {
+                accounts.add(new MiningAccount("primary", MiningAccount.toNumericAccountId(getPassPhrase()), false,
+                        Collections.singletonList(getSoloServer()), getPassPhrase(), getTargetDeadline(), true));
+            }
+
+            Set<String> numericAccountIds = new HashSet<>();
+            numericAccountIds.add(accounts.get(0).getNumericAccountId());
+            for (String name : asStringList("additionalAccounts", Collections.emptyList())) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                long accountTargetDeadline = asLong(name + ".targetDeadline", DEFAULT_TARGET_DEADLINE);
+                String accountPoolServer = asString(name + ".poolServer", null);
+                MiningAccount account;
+                if (!StringUtils.isEmpty(accountPoolServer)) {
+                    String accountNumericAccountId = asString(name + ".numericAccountId", null);
+                    if (StringUtils.isEmpty(accountNumericAccountId)) {
+                        LOG.error("account '" + name + "': property '" + name + ".numericAccountId' is missing, account is not mined.");
+                        continue;
+                    }
+                    account = new MiningAccount(name, accountNumericAccountId, true, Collections.singletonList(accountPoolServer), null,
+                            accountTargetDeadline, false);
+                } else {
+                    String accountPassPhrase = asString(name + ".passPhrase", null);
+                    if (StringUtils.isEmpty(accountPassPhrase)) {
+                        LOG.error("account '" + name + "': property '" + name + ".poolServer' or '" + name + ".passPhrase' is missing, account is not mined.");
+                        continue;
+                    }
+                    account = new MiningAccount(name, MiningAccount.toNumericAccountId(accountPassPhrase), false,
+                            Collections.singletonList(asString(name + ".soloServer", getSoloServer())), accountPassPhrase, accountTargetDeadline, false);
+                }
+                if (numericAccountIds.add(account.getNumericAccountId())) {
+                    accounts.add(account);
+                } else {
+                    LOG.error("account '" + name + "': numericAccountId '" + account.getNumericAccountId() + "' is already mined.");
+                }
+            }
+            miningAccounts = Collections.unmodifiableList(accounts);
+        }
+        return miningAccounts;
+    }
+
     /**
      * Gets pool server.
      *
@@ -214,6 +421,18 @@ public class CoreProperties {
         return poolServer;
     }
 
+    /**
+     * Gets additional pool servers, raced for mining info and used for submits if 'poolServer' fails.
+     *
+     * @return the pool failover servers
+     */
+    public static List<String> getPoolFailoverServers() {
+        if (poolFailoverServers == null) {
+            poolFailoverServers = asStringList("poolFailoverServers", Collections.emptyList());
+        }
+        return poolFailoverServers;
+    }
+
     /**
      * Gets wallet server.
      *
@@ -261,6 +480,18 @@ public class CoreProperties {
         return !StringUtils.isEmpty(soloServer) ? soloServer : DEFAULT_SOLO_SERVER;
     }
 
+    /**
+     * Gets additional solo servers, raced for mining info and used for submits if 'soloServer' fails.
+     *
+     * @return the solo failover servers
+     */
+    public static List<String> getSoloFailoverServers() {
+        if (soloFailoverServers == null) {
+            soloFailoverServers = asStringList("soloFailoverServers", Collections.emptyList());
+        }
+        return soloFailoverServers;
+    }
+
     /**
      * Gets pass phrase.
      *
@@ -301,6 +532,111 @@ public class CoreProperties {
         return deviceId;
     }
 
+    /**
+     * Gets openCL devices used for checking, as 'platformId:deviceId', defaults to platformId and deviceId.
+     *
+     * @return the ocl devices, empty if openCL is disabled
+     */
+    public static List<String> getOclDevices() {
+        if (oclDevices == null) {
+            List<String> devices = asStringList("oclDevices", Collections.singletonList(getPlatformId() + ":" + getDeviceId()));
+            oclDevices = new ArrayList<>();
+            for (String device : devices) {
+                String trimmed = device.trim();
+                if (trimmed.matches("\\d+:\\d+")) {
+                    oclDevices.add(trimmed);
+                } else if (!"none".equalsIgnoreCase(trimmed)) {
+                    LOG.error("property: 'oclDevices' value '" + trimmed + "' should be 'platformId:deviceId'.");
+                }
+            }
+        }
+        return oclDevices;
+    }
+
+    /**
+     * Gets number of cpu checkers beside openCL devices, they check on the reader thread handing in the part.
+     *
+     * @return the cpu checkers
+     */
+    public static int getCpuCheckers() {
+        if (cpuCheckers == null) {
+            cpuCheckers = asInteger("cpuCheckers", DEFAULT_CPU_CHECKERS);
+        }
+        return cpuCheckers;
+    }
+
+    /**
+     * Gets number of nonces parts are collected to, before checked together, 0 disables batching.
+     *
+     * @return the checker batch nonces
+     */
+    public static long getCheckerBatchNonces() {
+        if (checkerBatchNonces == null) {
+            checkerBatchNonces = asLong("checkerBatchNonces", DEFAULT_CHECKER_BATCH_NONCES);
+        }
+        return checkerBatchNonces;
+    }
+
+    /**
+     * Gets max. time in ms a part waits in an incomplete batch.
+     *
+     * @return the checker batch latency
+     */
+    public static long getCheckerBatchLatency() {
+        if (checkerBatchLatency == null) {
+            checkerBatchLatency = asLong("checkerBatchLatency", DEFAULT_CHECKER_BATCH_LATENCY);
+        }
+        return checkerBatchLatency;
+    }
+
+    /**
+     * Gets number of best nonces the checker reports per part, kept as fallback if a commit fails.
+     *
+     * @return the checker top k, between 1 and 8
+     */
+    public static int getCheckerTopK() {
+        if (checkerTopK == null) {
+            checkerTopK = Math.max(1, Math.min(MAX_CHECKER_TOP_K, asInteger("checkerTopK", DEFAULT_CHECKER_TOP_K)));
+        }
+        return checkerTopK;
+    }
+
+    /**
+     * Is openCL zero copy enabled, only used for devices sharing memory with the host.
+     *
+     * @return the boolean
+     */
+    public static boolean isOclZeroCopy() {
+        if (oclZeroCopy == null) {
+            oclZeroCopy = asBoolean("oclZeroCopy", DEFAULT_OCL_ZERO_COPY);
+        }
+        return oclZeroCopy;
+    }
+
+    /**
+     * Gets directory of compiled openCL program binaries, 'none' disables the cache.
+     *
+     * @return the ocl program cache directory or null
+     */
+    public static String getOclProgramCache() {
+        if (oclProgramCache == null) {
+            oclProgramCache = asString("oclProgramCache", DEFAULT_OCL_PROGRAM_CACHE);
+        }
+        return "none".equalsIgnoreCase(oclProgramCache) ? null : oclProgramCache;
+    }
+
+    /**
+     * Gets file of the round journal, used to resume a round after restart, 'none' disables the journal.
+     *
+     * @return the round journal file or null
+     */
+    public static String getRoundJournal() {
+        if (roundJournal == null) {
+            roundJournal = asString("roundJournal", DEFAULT_ROUND_JOURNAL);
+        }
+        return "none".equalsIgnoreCase(roundJournal) ? null : roundJournal;
+    }
+
     public static int getReaderThreads() {
         if (readerThreads == null) {
             readerThreads = asInteger("readerThreads", DEFAULT_READER_THREADS);
@@ -308,6 +644,30 @@ public class CoreProperties {
         return readerThreads;
     }
 
+    /**
+     * Gets max. time in ms plots are read per round, 0 reads all plots.
+     *
+     * @return the round time budget
+     */
+    public static long getRoundTimeBudget() {
+        if (roundTimeBudget == null) {
+            roundTimeBudget = asLong("roundTimeBudget", DEFAULT_ROUND_TIME_BUDGET);
+        }
+        return roundTimeBudget;
+    }
+
+    /**
+     * Gets max. time in ms reading one part of a drive may take, before the drive is demoted, 0 never demotes drives.
+     *
+     * @return the drive slow read time
+     */
+    public static long getDriveSlowReadTime() {
+        if (driveSlowReadTime == null) {
+            driveSlowReadTime = asLong("driveSlowReadTime", DEFAULT_DRIVE_SLOW_READ_TIME);
+        }
+        return driveSlowReadTime;
+    }
+
     /**
      * Gets plot paths.
      *
@@ -399,6 +759,211 @@ public class CoreProperties {
         return logFilePath;
     }
 
+    /**
+     * Is proxy, serves mining info of pool to downstream miners and forwards their best deadlines.
+     *
+     * @return the boolean
+     */
+    public static boolean isProxy() {
+        if (proxy == null) {
+            proxy = asBoolean("proxy", DEFAULT_PROXY);
+        }
+        return proxy;
+    }
+
+    /**
+     * Gets proxy port.
+     *
+     * @return the proxy port
+     */
+    public static int getProxyPort() {
+        if (proxyPort == null) {
+            proxyPort = asInteger("proxyPort", DEFAULT_PROXY_PORT);
+        }
+        return proxyPort;
+    }
+
+    /**
+     * Is coordinator, agents on other hosts connect and send their results for submit.
+     *
+     * @return the boolean
+     */
+    public static boolean isCoordinator() {
+        if (coordinator == null) {
+            coordinator = asBoolean("coordinator", DEFAULT_COORDINATOR);
+        }
+        return coordinator;
+    }
+
+    /**
+     * Gets coordinator port.
+     *
+     * @return the coordinator port
+     */
+    public static int getCoordinatorPort() {
+        if (coordinatorPort == null) {
+            coordinatorPort = asInteger("coordinatorPort", DEFAULT_COORDINATOR_PORT);
+        }
+        return coordinatorPort;
+    }
+
+    /**
+     * Gets coordinator server (host:port), the coordinator this agent connects to.
+     *
+     * @return the coordinator server, empty if not agent
+     */
+    public static String getCoordinatorServer() {
+        if (coordinatorServer == null) {
+            coordinatorServer = asString("coordinatorServer", "");
+        }
+        return coordinatorServer;
+    }
+
+    /**
+     * Is agent, mining info comes from coordinator and results are sent to it.
+     *
+     * @return the boolean
+     */
+    public static boolean isAgent() {
+        return !StringUtils.isEmpty(getCoordinatorServer());
+    }
+
+    /**
+     * Gets agent name, shown by coordinator.
+     *
+     * @return the agent name
+     */
+    public static String getAgentName() {
+        if (agentName == null) {
+            String hostName;
+            try {
+                hostName = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                hostName = "agent";
+            }
+            agentName = asString("agentName", hostName);
+        }
+        return agentName;
+    }
+
+    /**
+     * Gets plotter threads, '0' uses all cores.
+     *
+     * @return the plotter threads
+     */
+    public static int getPlotterThreads() {
+        if (plotterThreads == null) {
+            plotterThreads = asInteger("plotterThreads", DEFAULT_PLOTTER_THREADS);
+        }
+        return plotterThreads > 0 ? plotterThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Gets plotter memory in MB, used for plotted nonces not written yet.
+     *
+     * @return the plotter memory
+     */
+    public static int getPlotterMemory() {
+        if (plotterMemory == null) {
+            plotterMemory = Math.max(1, asInteger("plotterMemory", DEFAULT_PLOTTER_MEMORY));
+        }
+        return plotterMemory;
+    }
+
+    /**
+     * Is simulator, runs a simulated pool/wallet server for testing.
+     *
+     * @return the boolean
+     */
+    public static boolean isSimulator() {
+        if (simulator == null) {
+            simulator = asBoolean("simulator", DEFAULT_SIMULATOR);
+        }
+        return simulator;
+    }
+
+    /**
+     * Gets simulator port.
+     *
+     * @return the simulator port
+     */
+    public static int getSimulatorPort() {
+        if (simulatorPort == null) {
+            simulatorPort = asInteger("simulatorPort", DEFAULT_SIMULATOR_PORT);
+        }
+        return simulatorPort;
+    }
+
+    /**
+     * Gets simulator block times in ms, used one after another.
+     *
+     * @return the simulator block times
+     */
+    public static List<Long> getSimulatorBlockTimes() {
+        if (simulatorBlockTimes == null) {
+            simulatorBlockTimes = new ArrayList<>();
+            for (String blockTime : asStringList("simulatorBlockTimes", DEFAULT_SIMULATOR_BLOCK_TIMES)) {
+                try {
+                    simulatorBlockTimes.add(Math.max(1000L, Long.valueOf(blockTime.trim())));
+                } catch (NumberFormatException e) {
+                    LOG.error("property: 'simulatorBlockTimes' value '" + blockTime + "' should be a numeric (long) value.");
+                }
+            }
+            if (simulatorBlockTimes.isEmpty()) {
+                simulatorBlockTimes.add(Long.valueOf(DEFAULT_SIMULATOR_BLOCK_TIMES.get(0)));
+            }
+        }
+        return simulatorBlockTimes;
+    }
+
+    /**
+     * Gets simulator base target.
+     *
+     * @return the simulator base target
+     */
+    public static long getSimulatorBaseTarget() {
+        if (simulatorBaseTarget == null) {
+            simulatorBaseTarget = asLong("simulatorBaseTarget", DEFAULT_SIMULATOR_BASE_TARGET);
+        }
+        return simulatorBaseTarget;
+    }
+
+    /**
+     * Gets simulator seed, for generation signatures.
+     *
+     * @return the simulator seed
+     */
+    public static long getSimulatorSeed() {
+        if (simulatorSeed == null) {
+            simulatorSeed = asLong("simulatorSeed", DEFAULT_SIMULATOR_SEED);
+        }
+        return simulatorSeed;
+    }
+
+    /**
+     * Gets simulator latency in ms, added to every response.
+     *
+     * @return the simulator latency
+     */
+    public static long getSimulatorLatency() {
+        if (simulatorLatency == null) {
+            simulatorLatency = asLong("simulatorLatency", DEFAULT_SIMULATOR_LATENCY);
+        }
+        return simulatorLatency;
+    }
+
+    /**
+     * Gets simulator error percent, of requests answered with an error.
+     *
+     * @return the simulator error percent
+     */
+    public static int getSimulatorErrorPercent() {
+        if (simulatorErrorPercent == null) {
+            simulatorErrorPercent = Math.max(0, Math.min(100, asInteger("simulatorErrorPercent", DEFAULT_SIMULATOR_ERROR_PERCENT)));
+        }
+        return simulatorErrorPercent;
+    }
+
     private static Boolean asBoolean(String key, boolean defaultValue) {
         String booleanProperty = PROPS.containsKey(key) ? String.valueOf(PROPS.getProperty(key)) : null;
         Boolean value = null;
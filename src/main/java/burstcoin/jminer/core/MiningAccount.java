@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core;
+
+import nxt.crypto.Crypto;
+import nxt.util.Convert;
+
+import java.util.List;
+
+/**
+ * Account mined with this miner, every account has its own submit target and target deadline.
+ * The primary account is configured by 'MINING MODE' and uses the failover servers, additional ones only their own server.
+ */
+public class MiningAccount {
+    private final String name;
+    private final String numericAccountId;
+    private final boolean poolMining;
+    private final List<String> servers;
+    private final String passPhrase;
+    private final long targetDeadline;
+    private final boolean primary;
+
+    /**
+     * Instantiates a new Mining account.
+     *
+     * @param name the name used in config and logs
+     * @param numericAccountId the numeric account id, first number of plot-files
+     * @param poolMining the pool mining
+     * @param servers the pool or wallet servers, in failover order
+     * @param passPhrase the pass phrase, solo mining only
+     * @param targetDeadline the target deadline
+     * @param primary true for the account of 'MINING MODE'
+     */
+    public MiningAccount(String name, String numericAccountId, boolean poolMining, List<String> servers, String passPhrase, long targetDeadline,
+                         boolean primary) {
+        this.name = name;
+        this.numericAccountId = numericAccountId;
+        this.poolMining = poolMining;
+        this.servers = servers;
+        this.passPhrase = passPhrase;
+        this.targetDeadline = targetDeadline;
+        this.primary = primary;
+    }
+
+    /**
+     * Numeric account id of a solo account.
+     *
+     * @param passPhrase the pass phrase
+     * @return the numeric account id
+     */
+    public static String toNumericAccountId(String passPhrase) {
+        byte[] publicKey = Crypto.getPublicKey(passPhrase);
+        byte[] publicKeyHash = Crypto.sha256().digest(publicKey);
+        long accountId = Convert.fullHashToId(publicKeyHash);
+        return Convert.toUnsignedLong(accountId);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNumericAccountId() {
+        return numericAccountId;
+    }
+
+    public boolean isPoolMining() {
+        return poolMining;
+    }
+
+    public List<String> getServers() {
+        return servers;
+    }
+
+    public String getPassPhrase() {
+        return passPhrase;
+    }
+
+    public long getTargetDeadline() {
+        return targetDeadline;
+    }
+
+    public boolean isPrimary() {
+        return primary;
+    }
+}
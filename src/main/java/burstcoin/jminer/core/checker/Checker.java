@@ -22,19 +22,34 @@
 
 package burstcoin.jminer.core.checker;
 
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.task.OCLCheckerBatchTask;
 import burstcoin.jminer.core.checker.task.OCLCheckerTask;
-import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
+import burstcoin.jminer.core.checker.util.CheckerPool;
+import burstcoin.jminer.core.reader.util.ScoopBufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.stereotype.Component;
+import pocminer.generate.MiningPlot;
+
+import javax.annotation.PostConstruct;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Timer;
+import java.util.TimerTask;
 
 /**
  * The type Checker.
+ * <p>
+ * Parts smaller than 'checkerBatchNonces' are collected into batches, to save kernel launches and result reads
+ * on many small plot files. A batch is checked when full, or after 'checkerBatchLatency' ms at the latest.
+ * <p>
+ * Parts are passed in by the reader threads and results go to the registered listener directly, one part is checked
+ * per reader thread at a time, so every thread reuses its own task.
  */
 @Component
 @Scope("singleton")
@@ -43,30 +58,123 @@ public class Checker {
 
     private final ApplicationContext context;
     private final SyncTaskExecutor checkTaskExecutor;
+    private final ThreadLocal<OCLCheckerTask> checkerTasks;
+    private volatile CheckerResultListener resultListener;
+
+    // own pool, batch buffers have a different size than the reader buffers
+    private final ScoopBufferPool batchBufferPool = new ScoopBufferPool();
+    private final Object batchLock = new Object();
+    private OCLCheckerBatchTask batchTask;
+    private long batchNonces;
+    private long batchLatency;
+    private Timer timer;
 
-    // data
-    private long blockNumber;
-    private byte[] generationSignature;
+    // data, reconfigured by round thread, read by reader threads
+    private volatile long blockNumber;
+    private volatile byte[] generationSignature;
 
     @Autowired
     public Checker(ApplicationContext context, SyncTaskExecutor checkTaskExecutor) {
         this.context = context;
         this.checkTaskExecutor = checkTaskExecutor;
+        checkerTasks = ThreadLocal.withInitial(() -> context.getBean(OCLCheckerTask.class));
+    }
+
+    @PostConstruct
+    protected void postConstruct() {
+        batchNonces = CoreProperties.getCheckerBatchNonces();
+        batchLatency = CoreProperties.getCheckerBatchLatency();
+        batchBufferPool.addDropListener(context.getBean(CheckerPool.class)::releaseBuffer);
+        timer = new Timer();
     }
 
+    /**
+     * Sets result listener.
+     *
+     * @param resultListener the result listener
+     */
+    public void setResultListener(CheckerResultListener resultListener) {
+        this.resultListener = resultListener;
+    }
+
+    /**
+     * Reconfigure for a new round, a new block or a fork (same block, other generation signature).
+     *
+     * @param blockNumber         the block number
+     * @param generationSignature the generation signature, parts are only checked if loaded for this instance
+     */
     public void reconfigure(long blockNumber, byte[] generationSignature) {
         this.blockNumber = blockNumber;
         this.generationSignature = generationSignature;
+
+        // parts of previous round are not needed anymore
+        synchronized (batchLock) {
+            if (batchTask != null) {
+                batchTask.discard();
+                batchTask = null;
+            }
+        }
     }
 
-    @EventListener
-    public void handleMessage(ReaderLoadedPartEvent event) {
-        if (blockNumber == event.getBlockNumber()) {
-            OCLCheckerTask oclCheckerTask = context.getBean(OCLCheckerTask.class);
-            oclCheckerTask.init(event.getBlockNumber(), generationSignature, event.getScoops(), event.getChunkPartStartNonce());
-            checkTaskExecutor.execute(oclCheckerTask);
+    /**
+     * Check loaded part, called by reader threads.
+     *
+     * @param blockNumber         the block number
+     * @param generationSignature the generation signature the part was loaded for
+     * @param scoops              the scoops, only valid until this method returns
+     * @param accountId           the numeric account id of the plot-file
+     * @param chunkPartStartNonce the chunk part start nonce
+     */
+    public void check(long blockNumber, byte[] generationSignature, ByteBuffer scoops, long accountId, BigInteger chunkPartStartNonce) {
+        if (this.blockNumber == blockNumber && this.generationSignature == generationSignature) {
+            if (scoops.limit() / MiningPlot.SCOOP_SIZE < batchNonces) {
+                addToBatch(blockNumber, generationSignature, scoops, accountId, chunkPartStartNonce);
+            } else {
+                OCLCheckerTask oclCheckerTask = checkerTasks.get();
+                oclCheckerTask.init(blockNumber, generationSignature, scoops, accountId, chunkPartStartNonce, resultListener);
+                checkTaskExecutor.execute(oclCheckerTask);
+            }
         } else {
-            LOG.trace("skipped check scoop ... old block ...");
+            LOG.trace("skipped check scoop ... old round ...");
+        }
+    }
+
+    private void addToBatch(long blockNumber, byte[] generationSignature, ByteBuffer scoops, long accountId, BigInteger chunkPartStartNonce) {
+        OCLCheckerBatchTask fullBatchTask = null;
+        synchronized (batchLock) {
+            if (batchTask == null || batchTask.getBlockNumber() != blockNumber || batchTask.getGenerationSignature() != generationSignature) {
+                // parts are smaller than batchNonces, so twice the size is enough to never overflow
+                batchTask = context.getBean(OCLCheckerBatchTask.class);
+                batchTask.init(blockNumber, generationSignature, batchBufferPool, batchNonces * 2, resultListener);
+                scheduleFlush(batchTask);
+            }
+            batchTask.add(scoops, accountId, chunkPartStartNonce);
+            if (batchTask.getNonces() >= batchNonces) {
+                fullBatchTask = batchTask;
+                batchTask = null;
+            }
         }
+        // checked on reader thread, like single parts
+        if (fullBatchTask != null) {
+            checkTaskExecutor.execute(fullBatchTask);
+        }
+    }
+
+    private void scheduleFlush(OCLCheckerBatchTask scheduledBatchTask) {
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                OCLCheckerBatchTask dueBatchTask = null;
+                synchronized (batchLock) {
+                    if (batchTask == scheduledBatchTask) {
+                        dueBatchTask = batchTask;
+                        batchTask = null;
+                    }
+                }
+                if (dueBatchTask != null) {
+                    checkTaskExecutor.execute(dueBatchTask);
+                }
+            }
+        }, batchLatency);
     }
 }
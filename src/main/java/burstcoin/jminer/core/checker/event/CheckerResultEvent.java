@@ -25,33 +25,54 @@ package burstcoin.jminer.core.checker.event;
 import java.math.BigInteger;
 
 /**
- * fired if chunk-part checked
+ * fired if chunk-part checked, holds the best nonces of the part (see 'checkerTopK'), lowest first
  */
 public class CheckerResultEvent {
     private BigInteger chunkPartStartNonce;
 
     private long blockNumber;
-    private BigInteger nonce;
-    private BigInteger result;
+    private byte[] generationSignature;
+    private long accountId;
+    private BigInteger[] nonces;
+    private BigInteger[] results;
 
-    public CheckerResultEvent(long blockNumber, BigInteger chunkPartStartNonce, BigInteger nonce, BigInteger result) {
+    public CheckerResultEvent(long blockNumber, byte[] generationSignature, long accountId, BigInteger chunkPartStartNonce, BigInteger[] nonces,
+                              BigInteger[] results) {
         this.chunkPartStartNonce = chunkPartStartNonce;
         this.blockNumber = blockNumber;
+        this.generationSignature = generationSignature;
+        this.accountId = accountId;
 
-        this.nonce = nonce;
-        this.result = result;
+        this.nonces = nonces;
+        this.results = results;
     }
 
     public long getBlockNumber() {
         return blockNumber;
     }
 
+    public byte[] getGenerationSignature() {
+        return generationSignature;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
     public BigInteger getNonce() {
-        return nonce;
+        return nonces[0];
     }
 
     public BigInteger getResult() {
-        return result;
+        return results[0];
+    }
+
+    public BigInteger[] getNonces() {
+        return nonces;
+    }
+
+    public BigInteger[] getResults() {
+        return results;
     }
 
     public BigInteger getChunkPartStartNonce() {
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.checker.task;
+
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.CheckerResultListener;
+import burstcoin.jminer.core.checker.util.CheckerPool;
+import burstcoin.jminer.core.reader.util.ScoopBufferPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pocminer.generate.MiningPlot;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects small parts of one block and checks them with a single checker call, results are published per part.
+ */
+@Component
+@Scope("prototype")
+public class OCLCheckerBatchTask implements Runnable {
+    private final CheckerPool checkerPool;
+
+    private long blockNumber;
+    private byte[] generationSignature;
+    private ScoopBufferPool bufferPool;
+    private ByteBuffer scoops;
+    private CheckerResultListener resultListener;
+
+    private List<Long> accountIds;
+    private List<BigInteger> chunkPartStartNonces;
+    private int[] partOffsets;
+
+    @Autowired
+    public OCLCheckerBatchTask(CheckerPool checkerPool) {
+        this.checkerPool = checkerPool;
+    }
+
+    /**
+     * Init batch.
+     *
+     * @param blockNumber         the block number
+     * @param generationSignature the generation signature
+     * @param bufferPool          the pool to acquire the batch buffer from, it is released after run
+     * @param capacityNonces      the max number of nonces of the batch
+     * @param resultListener      the result listener
+     */
+    public void init(long blockNumber, byte[] generationSignature, ScoopBufferPool bufferPool, long capacityNonces, CheckerResultListener resultListener) {
+        this.blockNumber = blockNumber;
+        this.generationSignature = generationSignature;
+        this.bufferPool = bufferPool;
+        this.resultListener = resultListener;
+        this.scoops = bufferPool.acquire(capacityNonces);
+        scoops.limit(scoops.capacity());
+
+        accountIds = new ArrayList<>();
+        chunkPartStartNonces = new ArrayList<>();
+        partOffsets = new int[]{0};
+    }
+
+    /**
+     * Copy part into batch, the caller ensures it fits.
+     *
+     * @param partScoops          the scoops of the part
+     * @param accountId           the numeric account id of the part
+     * @param chunkPartStartNonce the chunk part start nonce
+     */
+    public void add(ByteBuffer partScoops, long accountId, BigInteger chunkPartStartNonce) {
+        ByteBuffer source = partScoops.duplicate();
+        source.position(0);
+        scoops.put(source);
+
+        accountIds.add(accountId);
+        chunkPartStartNonces.add(chunkPartStartNonce);
+        partOffsets = Arrays.copyOf(partOffsets, partOffsets.length + 1);
+        partOffsets[partOffsets.length - 1] = scoops.position() / MiningPlot.SCOOP_SIZE;
+    }
+
+    /**
+     * Gets nonces collected so far.
+     *
+     * @return the nonces
+     */
+    public int getNonces() {
+        return partOffsets[partOffsets.length - 1];
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public byte[] getGenerationSignature() {
+        return generationSignature;
+    }
+
+    /**
+     * Discard batch without checking it.
+     */
+    public void discard() {
+        bufferPool.release(scoops);
+        scoops = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            scoops.flip();
+            int topK = CoreProperties.getCheckerTopK();
+            int[] lowestNonces = checkerPool.findLowest(generationSignature, scoops, partOffsets, topK);
+            for (int part = 0; part < chunkPartStartNonces.size(); part++) {
+                resultListener.onCheckerResult(OCLCheckerTask.createResultEvent(blockNumber, generationSignature, scoops, partOffsets[part],
+                        accountIds.get(part), chunkPartStartNonces.get(part), lowestNonces, part * topK, topK));
+            }
+        } finally {
+            discard();
+        }
+    }
+}
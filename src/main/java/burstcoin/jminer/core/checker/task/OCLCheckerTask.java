@@ -23,58 +23,92 @@
 package burstcoin.jminer.core.checker.task;
 
 
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.CheckerResultListener;
 import burstcoin.jminer.core.checker.event.CheckerResultEvent;
-import burstcoin.jminer.core.checker.util.OCLChecker;
+import burstcoin.jminer.core.checker.util.CheckerPool;
 import fr.cryptohash.Shabal256;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import pocminer.generate.MiningPlot;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 
 @Component
 @Scope("prototype")
 public class OCLCheckerTask implements Runnable {
-    private final ApplicationEventPublisher publisher;
-    private final OCLChecker oclChecker;
+    private final CheckerPool checkerPool;
 
     private long blockNumber;
     private byte[] generationSignature;
-    private byte[] scoops;
+    private ByteBuffer scoops;
+    private long accountId;
     private BigInteger chunkPartStartNonce;
+    private CheckerResultListener resultListener;
 
     @Autowired
-    public OCLCheckerTask(OCLChecker oclChecker, ApplicationEventPublisher publisher) {
-        this.oclChecker = oclChecker;
-        this.publisher = publisher;
+    public OCLCheckerTask(CheckerPool checkerPool) {
+        this.checkerPool = checkerPool;
     }
 
-    public void init(long blockNumber, byte[] generationSignature, byte[] scoops, BigInteger chunkPartStartNonce) {
+    public void init(long blockNumber, byte[] generationSignature, ByteBuffer scoops, long accountId, BigInteger chunkPartStartNonce,
+                     CheckerResultListener resultListener) {
         this.blockNumber = blockNumber;
         this.generationSignature = generationSignature;
         this.scoops = scoops;
+        this.accountId = accountId;
         this.chunkPartStartNonce = chunkPartStartNonce;
+        this.resultListener = resultListener;
     }
 
     @Override
     public void run() {
-        int lowestNonce;
-        synchronized (oclChecker) {
-            lowestNonce = oclChecker.findLowest(generationSignature, scoops);
-        }
-        BigInteger nonce = chunkPartStartNonce.add(BigInteger.valueOf(lowestNonce));
+        int topK = CoreProperties.getCheckerTopK();
+        int[] lowestNonces = checkerPool.findLowest(generationSignature, scoops, new int[]{0, scoops.limit() / MiningPlot.SCOOP_SIZE}, topK);
+        resultListener.onCheckerResult(createResultEvent(blockNumber, generationSignature, scoops, 0, accountId, chunkPartStartNonce, lowestNonces, 0, topK));
+    }
 
-        BigInteger result = calculateResult(scoops, generationSignature, lowestNonce);
-        publisher.publishEvent(new CheckerResultEvent(blockNumber, chunkPartStartNonce, nonce, result));
+    /**
+     * Create result event for one part, from the positions found by the checker.
+     *
+     * @param blockNumber         the block number
+     * @param generationSignature the generation signature
+     * @param scoops              the checked scoops
+     * @param partOffset          the first nonce of the part within scoops
+     * @param accountId           the numeric account id of the part
+     * @param chunkPartStartNonce the chunk part start nonce
+     * @param lowestNonces        the lowest nonce positions returned by the checker
+     * @param first               the index of the first position of the part in lowestNonces
+     * @param topK                the number of positions per part
+     * @return the checker result event
+     */
+    static CheckerResultEvent createResultEvent(long blockNumber, byte[] generationSignature, ByteBuffer scoops, int partOffset, long accountId,
+                                                BigInteger chunkPartStartNonce, int[] lowestNonces, int first, int topK) {
+        int found = 0;
+        while (found < topK && lowestNonces[first + found] >= 0) {
+            found++;
+        }
+        BigInteger[] nonces = new BigInteger[found];
+        BigInteger[] results = new BigInteger[found];
+        for (int i = 0; i < found; i++) {
+            nonces[i] = chunkPartStartNonce.add(BigInteger.valueOf(lowestNonces[first + i]));
+            results[i] = calculateResult(scoops, generationSignature, partOffset + lowestNonces[first + i]);
+        }
+        return new CheckerResultEvent(blockNumber, generationSignature, accountId, chunkPartStartNonce, nonces, results);
     }
 
-    private BigInteger calculateResult(byte[] scoops, byte[] generationSignature, int nonce) {
+    static BigInteger calculateResult(ByteBuffer scoops, byte[] generationSignature, int nonce) {
+        byte[] scoop = new byte[MiningPlot.SCOOP_SIZE];
+        ByteBuffer scoopView = scoops.duplicate();
+        scoopView.position(nonce * MiningPlot.SCOOP_SIZE);
+        scoopView.get(scoop);
+
         Shabal256 md = new Shabal256();
         md.reset();
         md.update(generationSignature);
-        md.update(scoops, nonce * MiningPlot.SCOOP_SIZE, MiningPlot.SCOOP_SIZE);
+        md.update(scoop);
         byte[] hash = md.digest();
         return new BigInteger(1, new byte[]{hash[7], hash[6], hash[5], hash[4], hash[3], hash[2], hash[1], hash[0]});
     }
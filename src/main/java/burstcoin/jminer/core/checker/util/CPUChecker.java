@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.checker.util;
+
+import fr.cryptohash.Shabal256;
+import pocminer.generate.MiningPlot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Finds lowest deadlines on CPU, one call at a time, computed on the calling thread.
+ */
+public class CPUChecker
+        implements DeadlineChecker {
+    private final String name;
+
+    private final Shabal256 md = new Shabal256();
+    private final byte[] scoop = new byte[MiningPlot.SCOOP_SIZE];
+    private final ByteBuffer hash = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Instantiates a new CPU checker.
+     *
+     * @param index the index of the cpu checker
+     */
+    public CPUChecker(int index) {
+        name = "CPU-" + index;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized int[] findLowest(byte[] gensig, ByteBuffer data, int[] partOffsets, int topK) {
+        ByteBuffer scoops = data.duplicate();
+        scoops.position(0);
+
+        int numParts = partOffsets.length - 1;
+        int[] lowest = new int[numParts * topK];
+        Arrays.fill(lowest, -1);
+        long[] lowestDeadlines = new long[topK];
+        for (int part = 0; part < numParts; part++) {
+            Arrays.fill(lowestDeadlines, -1L); // unsigned max
+            int first = part * topK;
+            for (int nonce = partOffsets[part]; nonce < partOffsets[part + 1]; nonce++) {
+                scoops.get(scoop);
+                md.reset();
+                md.update(gensig);
+                md.update(scoop);
+                md.digest(hash.array(), 0, 32);
+
+                // deadline is the unsigned little endian long of the first 8 hash bytes
+                long deadline = hash.getLong(0);
+                if (Long.compareUnsigned(deadline, lowestDeadlines[topK - 1]) < 0) {
+                    // insert sorted, top k is small
+                    int index = topK - 1;
+                    while (index > 0 && Long.compareUnsigned(lowestDeadlines[index - 1], deadline) > 0) {
+                        lowestDeadlines[index] = lowestDeadlines[index - 1];
+                        lowest[first + index] = lowest[first + index - 1];
+                        index--;
+                    }
+                    lowestDeadlines[index] = deadline;
+                    lowest[first + index] = nonce - partOffsets[part];
+                }
+            }
+        }
+        return lowest;
+    }
+
+    @Override
+    public void release() {
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.checker.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.util.ScoopBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Distributes parts over all configured openCL devices and cpu checkers.
+ * <p>
+ * Checks run on the calling reader thread, no own threads. A cpu checker is a slot computing on that thread, so at most
+ * as many cpu checkers as reader threads are busy at the same time.
+ * <p>
+ * Every part goes to the checker with the earliest expected completion, based on the nonces already pending on it
+ * and its measured nonces per second, so a slow device only gets the share of work it can handle.
+ */
+@Component
+@Scope("singleton")
+public class CheckerPool {
+    private static final Logger LOG = LoggerFactory.getLogger(CheckerPool.class);
+
+    // weight of the latest measurement in the nonces per second average
+    private static final double RATE_SMOOTHING = 0.2;
+
+    @Autowired
+    private ScoopBufferPool scoopBufferPool;
+
+    private final List<Backend> backends = new ArrayList<>();
+
+    @PostConstruct
+    protected void postConstruct() {
+        Set<String> oclDevices = new LinkedHashSet<>(CoreProperties.getOclDevices());
+        if (!oclDevices.isEmpty()) {
+            OCLChecker.listDevices(oclDevices);
+        }
+        for (String oclDevice : oclDevices) {
+            String[] ids = oclDevice.split(":");
+            backends.add(new Backend(new OCLChecker(Integer.valueOf(ids[0]), Integer.valueOf(ids[1]))));
+        }
+        for (int i = 0; i < CoreProperties.getCpuCheckers(); i++) {
+            backends.add(new Backend(new CPUChecker(i)));
+        }
+        if (backends.isEmpty()) {
+            throw new IllegalStateException("No checker configured, check 'oclDevices' and 'cpuCheckers'.");
+        }
+        LOG.info("checkers: " + getCheckerNames());
+        scoopBufferPool.addDropListener(this::releaseBuffer);
+    }
+
+    /**
+     * Release resources all checkers bound to the given buffer, it is not handed in again.
+     *
+     * @param data the dropped buffer
+     */
+    public void releaseBuffer(ByteBuffer data) {
+        for (Backend backend : backends) {
+            backend.checker.releaseBuffer(data);
+        }
+    }
+
+    /**
+     * Find lowest deadline in data, safe to be called by multiple threads.
+     *
+     * @param gensig the generation signature
+     * @param data   the scoops of one part, from position 0 to limit
+     * @return the position of the nonce with the lowest deadline within data
+     */
+    public int findLowest(byte[] gensig, ByteBuffer data) {
+        return findLowest(gensig, data, new int[]{0, data.limit() / 64}, 1)[0];
+    }
+
+    /**
+     * Find lowest deadlines of every part in data, safe to be called by multiple threads.
+     *
+     * @param gensig      the generation signature
+     * @param data        the scoops of all parts, from position 0 to limit
+     * @param partOffsets the first nonce of every part within data, followed by the total number of nonces
+     * @param topK        the number of lowest deadlines per part
+     * @return the positions of the topK lowest deadlines within each part, see {@link DeadlineChecker}
+     */
+    public int[] findLowest(byte[] gensig, ByteBuffer data, int[] partOffsets, int topK) {
+        long nonces = data.limit() / 64;
+        Backend backend = acquire(nonces);
+        long startTime = System.nanoTime();
+        try {
+            return backend.checker.findLowest(gensig, data, partOffsets, topK);
+        } finally {
+            release(backend, nonces, System.nanoTime() - startTime);
+        }
+    }
+
+    private synchronized Backend acquire(long nonces) {
+        // unmeasured checkers are assumed to be as fast as the fastest one, so each gets its first part soon
+        double fastestRate = 0;
+        for (Backend backend : backends) {
+            fastestRate = Math.max(fastestRate, backend.noncesPerSecond);
+        }
+        fastestRate = fastestRate > 0 ? fastestRate : 1;
+
+        Backend best = null;
+        double bestCompletion = Double.MAX_VALUE;
+        for (Backend backend : backends) {
+            double rate = backend.noncesPerSecond > 0 ? backend.noncesPerSecond : fastestRate;
+            double completion = (backend.pendingNonces + nonces) / rate;
+            if (completion < bestCompletion) {
+                bestCompletion = completion;
+                best = backend;
+            }
+        }
+        best.pendingNonces += nonces;
+        return best;
+    }
+
+    private synchronized void release(Backend backend, long nonces, long durationNanos) {
+        backend.pendingNonces -= nonces;
+        if (nonces > 0 && durationNanos > 0) {
+            double rate = nonces * 1000000000d / durationNanos;
+            backend.noncesPerSecond = backend.noncesPerSecond > 0
+                                      ? backend.noncesPerSecond + RATE_SMOOTHING * (rate - backend.noncesPerSecond)
+                                      : rate;
+        }
+    }
+
+    /**
+     * Gets checker names.
+     *
+     * @return the checker names
+     */
+    public List<String> getCheckerNames() {
+        List<String> names = new ArrayList<>();
+        for (Backend backend : backends) {
+            names.add(backend.checker.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Gets measured nonces per second of all checkers, 0 if not measured yet.
+     *
+     * @return the nonces per second, in order of checker names
+     */
+    public synchronized List<Long> getNoncesPerSecond() {
+        List<Long> rates = new ArrayList<>();
+        for (Backend backend : backends) {
+            rates.add((long) backend.noncesPerSecond);
+        }
+        return rates;
+    }
+
+    @PreDestroy
+    protected void releaseCheckers() {
+        for (Backend backend : backends) {
+            backend.checker.release();
+        }
+    }
+
+    private static final class Backend {
+        private final DeadlineChecker checker;
+        // guarded by pool
+        private long pendingNonces;
+        private double noncesPerSecond;
+
+        private Backend(DeadlineChecker checker) {
+            this.checker = checker;
+        }
+    }
+}
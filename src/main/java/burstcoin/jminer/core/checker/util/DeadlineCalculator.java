@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.checker.util;
+
+import fr.cryptohash.Shabal256;
+import pocminer.generate.MiningPlot;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Scoop number and deadline of a single nonce, calculated on cpu from its plotted data.
+ */
+public final class DeadlineCalculator {
+    private DeadlineCalculator() {
+    }
+
+    /**
+     * Calc scoop number of a block.
+     *
+     * @param blockNumber the block number
+     * @param generationSignature the generation signature
+     * @return the scoop number
+     */
+    public static int calcScoopNumber(long blockNumber, byte[] generationSignature) {
+        if (blockNumber > 0 && generationSignature != null) {
+            ByteBuffer buf = ByteBuffer.allocate(32 + 8);
+            buf.put(generationSignature);
+            buf.putLong(blockNumber);
+
+            // generate new scoop number
+            Shabal256 md = new Shabal256();
+            md.update(buf.array());
+
+            BigInteger hashnum = new BigInteger(1, md.digest());
+            return hashnum.mod(BigInteger.valueOf(MiningPlot.SCOOPS_PER_PLOT)).intValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Calc deadline of a nonce, plots the nonce first (expensive).
+     *
+     * @param accountId the numeric account id
+     * @param nonce the nonce
+     * @param generationSignature the generation signature
+     * @param scoopNumber the scoop number
+     * @param baseTarget the base target
+     * @return the deadline
+     */
+    public static long calcDeadline(long accountId, long nonce, byte[] generationSignature, int scoopNumber, long baseTarget) {
+        MiningPlot plot = new MiningPlot(accountId, nonce);
+        return calcDeadline(generationSignature, plot.getScoop(scoopNumber), baseTarget);
+    }
+
+    /**
+     * Calc deadline of a nonce from its scoop, as read from a plot-file.
+     *
+     * @param generationSignature the generation signature
+     * @param scoop the scoop of the nonce
+     * @param baseTarget the base target
+     * @return the deadline
+     */
+    public static long calcDeadline(byte[] generationSignature, byte[] scoop, long baseTarget) {
+        Shabal256 md = new Shabal256();
+        md.update(generationSignature);
+        md.update(scoop);
+        byte[] hash = md.digest();
+        BigInteger hit = new BigInteger(1, new byte[]{hash[7], hash[6], hash[5], hash[4], hash[3], hash[2], hash[1], hash[0]});
+        return hit.divide(BigInteger.valueOf(baseTarget)).longValue();
+    }
+}
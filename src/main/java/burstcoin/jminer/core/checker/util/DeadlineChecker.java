@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.checker.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Backend finding the lowest deadline within the scoops of one part.
+ */
+public interface DeadlineChecker {
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Find lowest deadlines of every part in data.
+     *
+     * @param gensig      the generation signature
+     * @param data        the scoops of all parts, from position 0 to limit
+     * @param partOffsets the first nonce of every part within data, followed by the total number of nonces
+     * @param topK        the number of lowest deadlines per part
+     * @return the positions of the topK lowest deadlines within each part, lowest first, -1 if a part has less nonces.
+     * results of part n start at index n * topK
+     */
+    int[] findLowest(byte[] gensig, ByteBuffer data, int[] partOffsets, int topK);
+
+    /**
+     * Release resources bound to the given buffer, it is not handed in again.
+     *
+     * @param data the dropped buffer
+     */
+    default void releaseBuffer(ByteBuffer data) {
+    }
+
+    /**
+     * Release resources, the checker is not used afterwards.
+     */
+    void release();
+}
@@ -29,6 +29,7 @@ import org.jocl.cl_command_queue;
 import org.jocl.cl_context;
 import org.jocl.cl_context_properties;
 import org.jocl.cl_device_id;
+import org.jocl.cl_event;
 import org.jocl.cl_kernel;
 import org.jocl.cl_mem;
 import org.jocl.cl_platform_id;
@@ -39,69 +40,93 @@ import org.jocl.utils.PlatformInfos;
 import org.jocl.utils.Platforms;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.Scope;
-import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.jocl.CL.CL_CONTEXT_PLATFORM;
+import static org.jocl.CL.CL_DEVICE_LOCAL_MEM_SIZE;
 import static org.jocl.CL.CL_DEVICE_MAX_COMPUTE_UNITS;
 import static org.jocl.CL.CL_DEVICE_TYPE_ALL;
 import static org.jocl.CL.CL_KERNEL_WORK_GROUP_SIZE;
+import static org.jocl.CL.CL_MAP_WRITE;
 import static org.jocl.CL.CL_MEM_READ_ONLY;
 import static org.jocl.CL.CL_MEM_READ_WRITE;
+import static org.jocl.CL.CL_MEM_USE_HOST_PTR;
 import static org.jocl.CL.CL_MEM_WRITE_ONLY;
-import static org.jocl.CL.clBuildProgram;
 import static org.jocl.CL.clCreateBuffer;
 import static org.jocl.CL.clCreateCommandQueue;
 import static org.jocl.CL.clCreateContext;
 import static org.jocl.CL.clCreateKernel;
-import static org.jocl.CL.clCreateProgramWithSource;
+import static org.jocl.CL.clEnqueueMapBuffer;
 import static org.jocl.CL.clEnqueueNDRangeKernel;
 import static org.jocl.CL.clEnqueueReadBuffer;
+import static org.jocl.CL.clEnqueueUnmapMemObject;
 import static org.jocl.CL.clEnqueueWriteBuffer;
+import static org.jocl.CL.clFlush;
 import static org.jocl.CL.clGetDeviceIDs;
 import static org.jocl.CL.clGetDeviceInfo;
 import static org.jocl.CL.clGetKernelWorkGroupInfo;
 import static org.jocl.CL.clGetPlatformIDs;
+import static org.jocl.CL.clReleaseCommandQueue;
 import static org.jocl.CL.clReleaseContext;
+import static org.jocl.CL.clReleaseEvent;
+import static org.jocl.CL.clReleaseKernel;
 import static org.jocl.CL.clReleaseMemObject;
+import static org.jocl.CL.clReleaseProgram;
 import static org.jocl.CL.clSetKernelArg;
+import static org.jocl.CL.clWaitForEvents;
 import static org.jocl.CL.setExceptionsEnabled;
 
 /**
  * Org. OCLChecker code and the used openCL kernels are provided by 'burst dev'. Please donate: BURST-QHCJ-9HB5-PTGC-5Q8J9
  */
-@Component
-@Scope("singleton")
-public class OCLChecker {
+public class OCLChecker
+        implements DeadlineChecker {
     private static final Logger LOG = LoggerFactory.getLogger(OCLChecker.class);
 
     private static final int SIZE_DIVISOR = CoreProperties.isByteUnitDecimal() ? 1000 : 1024;
     private static final String G_UNIT = CoreProperties.isByteUnitDecimal() ? "GB" : "GiB";
 
-    private cl_context context;
-    private cl_command_queue queue;
+    // while one buffer set is transferred to the device, the kernels of the other one can run
+    private static final int BUFFER_SETS = 2;
 
-    private cl_kernel kernel[] = new cl_kernel[2];
-    private long workgroupSize[] = new long[2];
+    private final String name;
 
-    private cl_mem gensigMem;
-    private cl_mem bestMem;
+    private cl_context context;
+    private cl_program program;
 
-    @PostConstruct
-    protected void postConstruct() {
-        initChecker(CoreProperties.getPlatformId(), CoreProperties.getDeviceId());
+    private long workgroupSize[] = new long[2];
+    private long localMemSize;
+
+    // devices sharing memory with the host (integrated gpu, cpu) read scoops in place
+    private boolean zeroCopy;
+    private final Map<ByteBuffer, HostMem> hostMems = new IdentityHashMap<>();
+
+    private BufferSet[] bufferSets;
+    private final AtomicInteger nextBufferSet = new AtomicInteger();
+
+    /**
+     * Instantiates a new OCL checker for the given device.
+     *
+     * @param platformId the platform id
+     * @param deviceId   the device id
+     */
+    public OCLChecker(int platformId, int deviceId) {
+        name = "OCL-" + platformId + ":" + deviceId;
+        initChecker(platformId, deviceId);
     }
 
     public void initChecker(int platformId, int deviceId) {
-        check();
-
         setExceptionsEnabled(true);
 
         int numPlatforms[] = new int[1];
@@ -128,7 +153,6 @@ public class OCLChecker {
         contextProperties.addProperty(CL_CONTEXT_PLATFORM, platforms[platformId]);
 
         context = clCreateContext(contextProperties, 1, new cl_device_id[]{devices[deviceId]}, null, null, null);
-        queue = clCreateCommandQueue(context, devices[deviceId], 0, null);
 
         String kernelSource;
         try {
@@ -139,100 +163,218 @@ public class OCLChecker {
             throw new RuntimeException("Failed to read calcdeadlines.cl file", e);
         }
 
-        cl_program program = clCreateProgramWithSource(context, 1, new String[]{kernelSource}, null, null);
-        clBuildProgram(program, 0, null, "-I kernel", null, null);
+        program = new OCLProgramCache(CoreProperties.getOclProgramCache()).build(context, devices[deviceId], kernelSource, "-I kernel");
 
-        kernel[0] = clCreateKernel(program, "calculate_deadlines", null);
-        kernel[1] = clCreateKernel(program, "reduce_best", null);
+        // kernel args are not thread safe, so every buffer set gets its own queue and kernels
+        bufferSets = new BufferSet[BUFFER_SETS];
+        for (int i = 0; i < BUFFER_SETS; i++) {
+            bufferSets[i] = new BufferSet(context, devices[deviceId], program);
+        }
 
         long[] maxWorkGroupSize = new long[1];
         for (int i = 0; i < 2; i++) {
-            clGetKernelWorkGroupInfo(kernel[i], devices[deviceId], CL_KERNEL_WORK_GROUP_SIZE, 8, Pointer.to(maxWorkGroupSize), null);
+            clGetKernelWorkGroupInfo(bufferSets[0].kernel[i], devices[deviceId], CL_KERNEL_WORK_GROUP_SIZE, 8, Pointer.to(maxWorkGroupSize), null);
             workgroupSize[i] = maxWorkGroupSize[0];
         }
 
+        long[] deviceLocalMemSize = new long[1];
+        clGetDeviceInfo(devices[deviceId], CL_DEVICE_LOCAL_MEM_SIZE, 8, Pointer.to(deviceLocalMemSize), null);
+        localMemSize = deviceLocalMemSize[0];
+
         long[] maxComputeUnits = new long[1];
         clGetDeviceInfo(devices[deviceId], CL_DEVICE_MAX_COMPUTE_UNITS, 8, Pointer.to(maxComputeUnits), null);
 
-        gensigMem = clCreateBuffer(context, CL_MEM_READ_ONLY, 32, null, null);
-        bestMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, 400, null, null); // org 400 // tested 5000
+        zeroCopy = CoreProperties.isOclZeroCopy() && DeviceInfos.getHostUnifiedMemory(devices[deviceId]);
 
         LOG.info("");
         LOG.info("(*) openCL context successfully started! (platformId: " + platformId + ", deviceId: " + deviceId + ")");
         LOG.info("-------------------------------------------------------");
     }
 
-    private void check() {
+    /**
+     * List system openCL platforms and devices.
+     *
+     * @param usedDevices the devices used for mining, as 'platformId:deviceId'
+     */
+    public static void listDevices(Collection<String> usedDevices) {
+        setExceptionsEnabled(true);
+
         List<cl_platform_id> platforms = Platforms.getPlatforms();
         LOG.info("-------------------------------------------------------");
         LOG.info("List of system openCL platforms and devices (* = used for mining)");
         LOG.info("");
         for (cl_platform_id cl_platform_id : platforms) {
             int currentPlatformId = platforms.indexOf(cl_platform_id);
-            if (currentPlatformId == CoreProperties.getPlatformId()) {
-
-                String selector = " * ";
-                String selectionPrefix = currentPlatformId == CoreProperties.getPlatformId() ? selector : "   ";
-                LOG.info(selectionPrefix + "PLATFORM-[" + currentPlatformId + "] " + PlatformInfos.getName(cl_platform_id) + " - "
-                        + "(" + PlatformInfos.getVersion(cl_platform_id) + ")");
-
-                List<cl_device_id> devices = Devices.getDevices(cl_platform_id);
-                for (cl_device_id cl_device_id : devices) {
-                    int currentDeviceId = devices.indexOf(cl_device_id);
-                    selectionPrefix = currentDeviceId == CoreProperties.getDeviceId() ? selector : "   ";
-
-                    LOG.info(selectionPrefix + "  DEVICE-[" + currentDeviceId + "] " + DeviceInfos.getName(cl_device_id) + " "
-                            + "(" + bytesAsGigabyte(DeviceInfos.getGlobalMemSize(cl_device_id)) + ")"
-                            + " - " + DeviceInfos.getVendor(cl_device_id) + " (" + DeviceInfos.getDeviceVersion(cl_device_id)
-                            + " | '" + DeviceInfos.getDriverVersion(cl_device_id) + "')");
-                    LOG.info(selectionPrefix + "         [" + currentDeviceId + "] "
-                            + "work group size: '" + DeviceInfos.getMaxWorkGroupSize(cl_device_id) + "', "
-                            + "computing units: '" + DeviceInfos.getMaxComputeUnits(cl_device_id) + "', "
-                            + "available '" + DeviceInfos.getAvailable(cl_device_id) + "'");
-                }
+            String selector = " * ";
+            List<cl_device_id> devices = Devices.getDevices(cl_platform_id);
+            boolean platformUsed = false;
+            for (int currentDeviceId = 0; currentDeviceId < devices.size(); currentDeviceId++) {
+                platformUsed |= usedDevices.contains(currentPlatformId + ":" + currentDeviceId);
+            }
+
+            String selectionPrefix = platformUsed ? selector : "   ";
+            LOG.info(selectionPrefix + "PLATFORM-[" + currentPlatformId + "] " + PlatformInfos.getName(cl_platform_id) + " - "
+                    + "(" + PlatformInfos.getVersion(cl_platform_id) + ")");
+
+            for (cl_device_id cl_device_id : devices) {
+                int currentDeviceId = devices.indexOf(cl_device_id);
+                selectionPrefix = usedDevices.contains(currentPlatformId + ":" + currentDeviceId) ? selector : "   ";
+
+                LOG.info(selectionPrefix + "  DEVICE-[" + currentDeviceId + "] " + DeviceInfos.getName(cl_device_id) + " "
+                        + "(" + bytesAsGigabyte(DeviceInfos.getGlobalMemSize(cl_device_id)) + ")"
+                        + " - " + DeviceInfos.getVendor(cl_device_id) + " (" + DeviceInfos.getDeviceVersion(cl_device_id)
+                        + " | '" + DeviceInfos.getDriverVersion(cl_device_id) + "')");
+                LOG.info(selectionPrefix + "         [" + currentDeviceId + "] "
+                        + "work group size: '" + DeviceInfos.getMaxWorkGroupSize(cl_device_id) + "', "
+                        + "computing units: '" + DeviceInfos.getMaxComputeUnits(cl_device_id) + "', "
+                        + "available '" + DeviceInfos.getAvailable(cl_device_id) + "'");
             }
         }
     }
 
     public void reset(int platformId, int deviceId) {
-        clReleaseContext(context);
+        release();
         initChecker(platformId, deviceId);
     }
 
-    private String bytesAsGigabyte(long bytes) {
-        return bytes / SIZE_DIVISOR / SIZE_DIVISOR / SIZE_DIVISOR % SIZE_DIVISOR + "" + G_UNIT;
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void releaseBuffer(ByteBuffer data) {
+        HostMem hostMem;
+        synchronized (hostMems) {
+            hostMem = hostMems.remove(data);
+        }
+        if (hostMem != null) {
+            hostMem.release();
+        }
+    }
+
+    @Override
+    public void release() {
+        // host buffers first, unmapping needs their queue
+        synchronized (hostMems) {
+            for (HostMem hostMem : hostMems.values()) {
+                hostMem.release();
+            }
+            hostMems.clear();
+        }
+        if (bufferSets != null) {
+            for (BufferSet bufferSet : bufferSets) {
+                synchronized (bufferSet) {
+                    bufferSet.release();
+                }
+            }
+            bufferSets = null;
+        }
+        if (program != null) {
+            clReleaseProgram(program);
+            program = null;
+        }
+        if (context != null) {
+            clReleaseContext(context);
+            context = null;
+        }
     }
 
-    public int findLowest(byte[] gensig, byte[] data) {
-        cl_mem dataMem, deadlineMem;
+    private static String bytesAsGigabyte(long bytes) {
+        return bytes / SIZE_DIVISOR / SIZE_DIVISOR / SIZE_DIVISOR % SIZE_DIVISOR + "" + G_UNIT;
+    }
 
-        long numNonces = data.length / 64;
+    /**
+     * Find lowest deadlines of every part in data, safe to be called by multiple threads.
+     * Calls are distributed round robin over the buffer sets, so the transfer of one part overlaps with the kernels of the other.
+     * All parts are checked by one kernel launch, the reduction runs one work group per part.
+     */
+    @Override
+    public int[] findLowest(byte[] gensig, ByteBuffer data, int[] partOffsets, int topK) {
+        int numParts = partOffsets.length - 1;
+        long numNonces = data.limit() / 64;
         long calcWorkgroups = numNonces / workgroupSize[0];
         // thx blago
         if (numNonces % workgroupSize[0] != 0) // if(numNonces % 64 != 0) // org.
         {
             calcWorkgroups++;
         }
-        clEnqueueWriteBuffer(queue, gensigMem, false, 0, 32, Pointer.to(gensig), 0, null, null);
-        dataMem = clCreateBuffer(context, CL_MEM_READ_ONLY, calcWorkgroups * workgroupSize[0] * 64, null, null);
-        clEnqueueWriteBuffer(queue, dataMem, false, 0, data.length, Pointer.to(data), 0, null, null);
-        deadlineMem = clCreateBuffer(context, CL_MEM_READ_WRITE, calcWorkgroups * workgroupSize[0] * 8, null, null);
-        clSetKernelArg(kernel[0], 0, Sizeof.cl_mem, Pointer.to(gensigMem));
-        clSetKernelArg(kernel[0], 1, Sizeof.cl_mem, Pointer.to(dataMem));
-        clSetKernelArg(kernel[0], 2, Sizeof.cl_mem, Pointer.to(deadlineMem));
-        clEnqueueNDRangeKernel(queue, kernel[0], 1, null, new long[]{calcWorkgroups * workgroupSize[0]}, new long[]{workgroupSize[0]}, 0, null, null);
-        clSetKernelArg(kernel[1], 0, Sizeof.cl_mem, Pointer.to(deadlineMem));
-        long len[] = {data.length / 64};
-        clSetKernelArg(kernel[1], 1, Sizeof.cl_uint, Pointer.to(len));
-        clSetKernelArg(kernel[1], 2, Sizeof.cl_uint * workgroupSize[1], null);
-        clSetKernelArg(kernel[1], 3, Sizeof.cl_ulong * workgroupSize[1], null);
-        clSetKernelArg(kernel[1], 4, Sizeof.cl_mem, Pointer.to(bestMem));
-        clEnqueueNDRangeKernel(queue, kernel[1], 1, null, new long[]{workgroupSize[1]}, new long[]{workgroupSize[1]}, 0, null, null);
-        int best[] = new int[1];
-        clEnqueueReadBuffer(queue, bestMem, true, 0, 4, Pointer.to(best), 0, null, null);
-        clReleaseMemObject(dataMem);
-        clReleaseMemObject(deadlineMem);
-        return best[0];
+
+        BufferSet bufferSet = bufferSets[(nextBufferSet.getAndIncrement() & Integer.MAX_VALUE) % BUFFER_SETS];
+        synchronized (bufferSet) {
+            cl_command_queue queue = bufferSet.queue;
+            // non-blocking writes need direct buffers, openCL reads them after this call returned
+            bufferSet.gensig.clear();
+            bufferSet.gensig.put(gensig).flip();
+            clEnqueueWriteBuffer(queue, bufferSet.gensigMem, false, 0, 32, Pointer.to(bufferSet.gensig), 0, null, null);
+
+            // device buffers only grow, they are sized to the largest part seen so far
+            HostMem hostMem = zeroCopy ? getHostMem(data, calcWorkgroups * workgroupSize[0]) : null;
+            bufferSet.ensureCapacity(context, calcWorkgroups * workgroupSize[0], hostMem == null);
+            bufferSet.ensurePartCapacity(context, numParts, topK);
+            if (hostMem == null) {
+                clEnqueueWriteBuffer(queue, bufferSet.dataMem, !data.isDirect(), 0, data.limit(), Pointer.to(rewind(data)), 0, null, null);
+            } else {
+                // hand the scoops the reader wrote into the mapped region over to the device, unmapped on this queue
+                // so the kernel below runs after it
+                hostMem.unmap(queue);
+            }
+            bufferSet.offsets.clear();
+            bufferSet.offsets.asIntBuffer().put(partOffsets);
+            clEnqueueWriteBuffer(queue, bufferSet.offsetsMem, false, 0, Sizeof.cl_uint * (numParts + 1), Pointer.to(bufferSet.offsets), 0, null, null);
+
+            clSetKernelArg(bufferSet.kernel[0], 1, Sizeof.cl_mem, Pointer.to(hostMem != null ? hostMem.mem : bufferSet.dataMem));
+            clEnqueueNDRangeKernel(queue, bufferSet.kernel[0], 1, null, new long[]{calcWorkgroups * workgroupSize[0]}, new long[]{workgroupSize[0]}, 0, null, null);
+            // every work item keeps its top k in local memory, which limits the reduce work group size
+            long reduceWorkgroupSize = Math.max(1, Math.min(Long.highestOneBit(workgroupSize[1]),
+                    Long.highestOneBit(localMemSize / ((Sizeof.cl_uint + Sizeof.cl_ulong) * topK))));
+            clSetKernelArg(bufferSet.kernel[1], 2, Sizeof.cl_uint, Pointer.to(new int[]{topK}));
+            clSetKernelArg(bufferSet.kernel[1], 3, Sizeof.cl_uint * reduceWorkgroupSize * topK, null);
+            clSetKernelArg(bufferSet.kernel[1], 4, Sizeof.cl_ulong * reduceWorkgroupSize * topK, null);
+            clEnqueueNDRangeKernel(queue, bufferSet.kernel[1], 1, null, new long[]{numParts * reduceWorkgroupSize}, new long[]{reduceWorkgroupSize}, 0, null,
+                    null);
+
+            cl_event readEvent = new cl_event();
+            clEnqueueReadBuffer(queue, bufferSet.bestMem, false, 0, Sizeof.cl_uint * numParts * topK, Pointer.to(bufferSet.best), 0, null, readEvent);
+            clFlush(queue);
+            clWaitForEvents(1, new cl_event[]{readEvent});
+            clReleaseEvent(readEvent);
+            if (hostMem != null) {
+                // back to the host, the reader writes the next part while mapped
+                hostMem.map(queue);
+            }
+
+            // 0xFFFFFFFF marks missing entries, same as -1
+            int[] lowest = new int[numParts * topK];
+            bufferSet.best.clear();
+            bufferSet.best.asIntBuffer().get(lowest);
+            return lowest;
+        }
+    }
+
+    // device buffer using the host memory of the given direct buffer, created once per pooled buffer
+    private HostMem getHostMem(ByteBuffer data, long nonces) {
+        if (!data.isDirect() || data.capacity() < nonces * 64) {
+            return null;
+        }
+        synchronized (hostMems) {
+            HostMem hostMem = hostMems.get(data);
+            if (hostMem == null) {
+                ByteBuffer wholeBuffer = rewind(data);
+                wholeBuffer.limit(wholeBuffer.capacity());
+                // contents are taken from the host memory on creation, the scoops already loaded need no unmap
+                hostMem = new HostMem(clCreateBuffer(context, CL_MEM_READ_ONLY | CL_MEM_USE_HOST_PTR, data.capacity(), Pointer.to(wholeBuffer), null),
+                                      data.capacity());
+                hostMems.put(data, hostMem);
+            }
+            return hostMem;
+        }
+    }
+
+    private static ByteBuffer rewind(ByteBuffer data) {
+        ByteBuffer view = data.duplicate();
+        view.position(0);
+        return view;
     }
 
     public static String readInputStreamAsString(InputStream in)
@@ -247,4 +389,165 @@ public class OCLChecker {
         }
         return buf.toString();
     }
+
+    /**
+     * Device buffer on the host memory of a pooled buffer, mapped while the host writes to it.
+     * <p>
+     * Without map/unmap the contents the host wrote are undefined for the device, a driver caching them could check
+     * stale scoops. Mapping a buffer created with CL_MEM_USE_HOST_PTR returns its host memory, so nothing is copied on
+     * devices sharing memory with the host.
+     */
+    private static final class HostMem {
+        private final cl_mem mem;
+        private final long size;
+
+        // guarded by the buffer set using it, only one findLowest call holds a pooled buffer at a time
+        private cl_command_queue mappedQueue;
+        private ByteBuffer mapped;
+
+        private HostMem(cl_mem mem, long size) {
+            this.mem = mem;
+            this.size = size;
+        }
+
+        private void map(cl_command_queue queue) {
+            mapped = clEnqueueMapBuffer(queue, mem, true, CL_MAP_WRITE, 0, size, 0, null, null, null);
+            mappedQueue = queue;
+        }
+
+        // map was blocking, so the unmap may go to any queue of the context, commands after it on that queue see the data
+        private void unmap(cl_command_queue queue) {
+            if (mapped != null) {
+                clEnqueueUnmapMemObject(queue, mem, mapped, 0, null, null);
+                mapped = null;
+                mappedQueue = null;
+            }
+        }
+
+        // the memory object is freed once the queued unmap has completed
+        private void release() {
+            if (mapped != null) {
+                cl_command_queue queue = mappedQueue;
+                unmap(queue);
+                clFlush(queue);
+            }
+            clReleaseMemObject(mem);
+        }
+    }
+
+    /**
+     * Persistent device buffers, command queue and kernels, used by one findLowest call at a time.
+     */
+    private static final class BufferSet {
+        private final cl_command_queue queue;
+        private final cl_kernel kernel[] = new cl_kernel[2];
+
+        private final cl_mem gensigMem;
+        private final ByteBuffer gensig;
+
+        private cl_mem dataMem;
+        private cl_mem deadlineMem;
+        // number of nonces dataMem and deadlineMem are sized for
+        private long dataCapacity;
+        private long deadlineCapacity;
+
+        // part offsets and per part results, direct buffers so they can be transferred without blocking the queue
+        private cl_mem offsetsMem;
+        private cl_mem bestMem;
+        private ByteBuffer offsets;
+        private ByteBuffer best;
+        private int partCapacity;
+        private int bestCapacity;
+
+        private BufferSet(cl_context context, cl_device_id device, cl_program program) {
+            queue = clCreateCommandQueue(context, device, 0, null);
+            kernel[0] = clCreateKernel(program, "calculate_deadlines", null);
+            kernel[1] = clCreateKernel(program, "reduce_best_parts", null);
+
+            gensigMem = clCreateBuffer(context, CL_MEM_READ_ONLY, 32, null, null);
+            gensig = ByteBuffer.allocateDirect(32);
+
+            clSetKernelArg(kernel[0], 0, Sizeof.cl_mem, Pointer.to(gensigMem));
+            ensurePartCapacity(context, 1, 1);
+        }
+
+        private void ensureCapacity(cl_context context, long nonces, boolean needsDataMem) {
+            if (nonces > deadlineCapacity) {
+                if (deadlineMem != null) {
+                    clReleaseMemObject(deadlineMem);
+                }
+                deadlineMem = clCreateBuffer(context, CL_MEM_READ_WRITE, nonces * 8, null, null);
+                deadlineCapacity = nonces;
+
+                clSetKernelArg(kernel[0], 2, Sizeof.cl_mem, Pointer.to(deadlineMem));
+                clSetKernelArg(kernel[1], 0, Sizeof.cl_mem, Pointer.to(deadlineMem));
+            }
+            // not needed on zero copy, scoops are read from host memory
+            if (needsDataMem && nonces > dataCapacity) {
+                if (dataMem != null) {
+                    clReleaseMemObject(dataMem);
+                }
+                dataMem = clCreateBuffer(context, CL_MEM_READ_ONLY, nonces * 64, null, null);
+                dataCapacity = nonces;
+            }
+        }
+
+        private void ensurePartCapacity(cl_context context, int parts, int resultsPerPart) {
+            if (parts > partCapacity) {
+                if (offsetsMem != null) {
+                    clReleaseMemObject(offsetsMem);
+                }
+                offsetsMem = clCreateBuffer(context, CL_MEM_READ_ONLY, Sizeof.cl_uint * (parts + 1), null, null);
+                offsets = ByteBuffer.allocateDirect(Sizeof.cl_uint * (parts + 1)).order(ByteOrder.nativeOrder());
+                partCapacity = parts;
+
+                clSetKernelArg(kernel[1], 1, Sizeof.cl_mem, Pointer.to(offsetsMem));
+            }
+            if (parts * resultsPerPart > bestCapacity) {
+                if (bestMem != null) {
+                    clReleaseMemObject(bestMem);
+                }
+                bestMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, Sizeof.cl_uint * parts * resultsPerPart, null, null);
+                best = ByteBuffer.allocateDirect(Sizeof.cl_uint * parts * resultsPerPart).order(ByteOrder.nativeOrder());
+                bestCapacity = parts * resultsPerPart;
+
+                clSetKernelArg(kernel[1], 5, Sizeof.cl_mem, Pointer.to(bestMem));
+            }
+        }
+
+        private void releaseDataMem() {
+            if (dataMem != null) {
+                clReleaseMemObject(dataMem);
+                dataMem = null;
+                dataCapacity = 0;
+            }
+            if (deadlineMem != null) {
+                clReleaseMemObject(deadlineMem);
+                deadlineMem = null;
+                deadlineCapacity = 0;
+            }
+        }
+
+        private void releasePartMem() {
+            if (offsetsMem != null) {
+                clReleaseMemObject(offsetsMem);
+                offsetsMem = null;
+                partCapacity = 0;
+            }
+            if (bestMem != null) {
+                clReleaseMemObject(bestMem);
+                bestMem = null;
+                bestCapacity = 0;
+            }
+        }
+
+        private void release() {
+            releaseDataMem();
+            releasePartMem();
+            clReleaseMemObject(gensigMem);
+            clReleaseKernel(kernel[0]);
+            clReleaseKernel(kernel[1]);
+            clReleaseCommandQueue(queue);
+        }
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.checker.util;
+
+import nxt.crypto.Crypto;
+import nxt.util.Convert;
+import org.jocl.CLException;
+import org.jocl.Pointer;
+import org.jocl.Sizeof;
+import org.jocl.cl_context;
+import org.jocl.cl_device_id;
+import org.jocl.cl_program;
+import org.jocl.utils.DeviceInfos;
+import org.jocl.utils.ProgramInfos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+
+import static org.jocl.CL.CL_PROGRAM_BINARIES;
+import static org.jocl.CL.CL_SUCCESS;
+import static org.jocl.CL.clBuildProgram;
+import static org.jocl.CL.clCreateProgramWithBinary;
+import static org.jocl.CL.clCreateProgramWithSource;
+import static org.jocl.CL.clGetProgramInfo;
+import static org.jocl.CL.clReleaseProgram;
+
+/**
+ * Builds openCL programs and keeps their compiled binaries on disk, as some drivers need seconds to compile the kernels.
+ * <p>
+ * Binaries are keyed by device name, driver version, build options and kernel source, a rejected binary is recompiled.
+ */
+public class OCLProgramCache {
+    private static final Logger LOG = LoggerFactory.getLogger(OCLProgramCache.class);
+
+    private final Path cacheDirectory;
+
+    /**
+     * Instantiates a new OCL program cache.
+     *
+     * @param cacheDirectory the cache directory, null disables the cache
+     */
+    public OCLProgramCache(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory != null ? Paths.get(cacheDirectory) : null;
+    }
+
+    /**
+     * Build program for device, from cached binary if available.
+     *
+     * @param context      the context
+     * @param device       the device
+     * @param kernelSource the kernel source
+     * @param options      the build options
+     * @return the built program
+     */
+    public cl_program build(cl_context context, cl_device_id device, String kernelSource, String options) {
+        Path binaryPath = cacheDirectory != null ? cacheDirectory.resolve(cacheKey(device, kernelSource, options) + ".bin") : null;
+        if (binaryPath != null && Files.isReadable(binaryPath)) {
+            cl_program program = null;
+            try {
+                byte[] binary = Files.readAllBytes(binaryPath);
+                int[] binaryStatus = new int[1];
+                program = clCreateProgramWithBinary(context, 1, new cl_device_id[]{device}, new long[]{binary.length}, new byte[][]{binary}, binaryStatus, null);
+                if (binaryStatus[0] != CL_SUCCESS) {
+                    throw new CLException("binary status " + binaryStatus[0]);
+                }
+                clBuildProgram(program, 0, null, options, null, null);
+                LOG.debug("openCL program loaded from '" + binaryPath + "'");
+                return program;
+            } catch (IOException | CLException e) {
+                LOG.info("cached openCL program rejected, recompiling ...");
+                LOG.debug("cached openCL program '" + binaryPath + "' rejected: " + e.getMessage());
+                if (program != null) {
+                    clReleaseProgram(program);
+                }
+            }
+        }
+
+        cl_program program = clCreateProgramWithSource(context, 1, new String[]{kernelSource}, null, null);
+        clBuildProgram(program, 0, null, options, null, null);
+        if (binaryPath != null) {
+            store(program, binaryPath);
+        }
+        return program;
+    }
+
+    private void store(cl_program program, Path binaryPath) {
+        try {
+            long[] binarySizes = ProgramInfos.getBinarySizes(program);
+            byte[] binary = new byte[(int) binarySizes[0]];
+            Pointer[] binaryPointers = {Pointer.to(binary)};
+            clGetProgramInfo(program, CL_PROGRAM_BINARIES, Sizeof.POINTER, Pointer.to(binaryPointers), null);
+
+            // write to temp file first, a crash while writing must not leave a broken binary behind
+            Files.createDirectories(binaryPath.getParent());
+            Path tempPath = binaryPath.resolveSibling(binaryPath.getFileName() + ".tmp");
+            Files.write(tempPath, binary);
+            Files.move(tempPath, binaryPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | CLException e) {
+            LOG.warn("Unable to cache openCL program binary: " + e.getMessage());
+        }
+    }
+
+    private static String cacheKey(cl_device_id device, String kernelSource, String options) {
+        String deviceName = DeviceInfos.getName(device).replaceAll("[^A-Za-z0-9]+", "_");
+        MessageDigest digest = Crypto.sha256();
+        digest.update(DeviceInfos.getDriverVersion(device).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(kernelSource.getBytes(StandardCharsets.UTF_8));
+        return deviceName + "-" + Convert.toHexString(digest.digest()).substring(0, 32);
+    }
+}
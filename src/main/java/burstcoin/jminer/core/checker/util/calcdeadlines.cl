@@ -503,3 +503,75 @@ __kernel void reduce_best(__global unsigned long* deadlines, unsigned int length
 		best[get_group_id(0)] = best_pos[0];
 	}
 }
+
+#define TOP_K_MAX			8
+
+// one work group per part, part_offsets holds the first nonce of each part and the total number of nonces at the end
+// writes the positions of the k lowest deadlines of each part to best, lowest first, 0xFFFFFFFF if a part has less nonces
+__kernel void reduce_best_parts(__global unsigned long* deadlines, __global unsigned int* part_offsets, unsigned int k, __local unsigned int* best_pos, __local unsigned long* best_deadline, __global unsigned int* best) {
+	int part = get_group_id(0);
+	int lid = get_local_id(0);
+	int lsize = get_local_size(0);
+
+	unsigned int start = part_offsets[part];
+	unsigned int end = part_offsets[part + 1];
+
+	// private top k, sorted ascending
+	unsigned int bpos[TOP_K_MAX];
+	unsigned long bdeadline[TOP_K_MAX];
+	for(unsigned int j = 0; j < k; j++) {
+		bpos[j] = 0xFFFFFFFF;
+		bdeadline[j] = 0xFFFFFFFFFFFFFFFFL;
+	}
+	for(unsigned int i = start + lid; i < end; i += lsize) {
+		unsigned long d = deadlines[i];
+		if(d < bdeadline[k - 1]) {
+			unsigned int j = k - 1;
+			while(j > 0 && bdeadline[j - 1] > d) {
+				bpos[j] = bpos[j - 1];
+				bdeadline[j] = bdeadline[j - 1];
+				j--;
+			}
+			bpos[j] = i - start;
+			bdeadline[j] = d;
+		}
+	}
+
+	for(unsigned int j = 0; j < k; j++) {
+		best_pos[lid * k + j] = bpos[j];
+		best_deadline[lid * k + j] = bdeadline[j];
+	}
+	barrier(CLK_LOCAL_MEM_FENCE);
+
+	// tree reduction, merging two sorted lists into the k lowest
+	for(int offset = lsize / 2;  offset > 0; offset >>=1) {
+		if(lid < offset) {
+			unsigned int a = lid * k;
+			unsigned int b = (lid + offset) * k;
+			unsigned int ia = 0;
+			unsigned int ib = 0;
+			for(unsigned int j = 0; j < k; j++) {
+				if(best_deadline[a + ia] <= best_deadline[b + ib]) {
+					bpos[j] = best_pos[a + ia];
+					bdeadline[j] = best_deadline[a + ia];
+					ia++;
+				} else {
+					bpos[j] = best_pos[b + ib];
+					bdeadline[j] = best_deadline[b + ib];
+					ib++;
+				}
+			}
+			for(unsigned int j = 0; j < k; j++) {
+				best_pos[a + j] = bpos[j];
+				best_deadline[a + j] = bdeadline[j];
+			}
+		}
+		barrier(CLK_LOCAL_MEM_FENCE);
+	}
+
+	if(lid == 0) {
+		for(unsigned int j = 0; j < k; j++) {
+			best[part * k + j] = best_deadline[j] == 0xFFFFFFFFFFFFFFFFL ? 0xFFFFFFFF : best_pos[j];
+		}
+	}
+}
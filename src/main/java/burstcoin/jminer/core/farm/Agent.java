@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.farm;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.farm.util.FarmConnection;
+import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
+import burstcoin.jminer.core.reader.Reader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Agent of a farm, mines the local drives for a coordinator on another host.
+ * Mining info is received from the coordinator and the best nonces of every checked chunk-part are sent back,
+ * the agent itself never talks to pool or wallet.
+ */
+@Component
+@Scope("singleton")
+public class Agent {
+    private static final Logger LOG = LoggerFactory.getLogger(Agent.class);
+
+    private static final long RECONNECT_DELAY = 5000;
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private Reader reader;
+
+    private volatile FarmConnection connection;
+    private long height;
+    private byte[] generationSignature;
+
+    /**
+     * Connect to coordinator, reconnects on connection loss.
+     */
+    public void connect() {
+        Thread agentThread = new Thread(this::connectLoop, "agent");
+        agentThread.setDaemon(true);
+        agentThread.start();
+    }
+
+    /**
+     * Send best nonces of a checked chunk-part to coordinator.
+     *
+     * @param blockNumber the block number
+     * @param generationSignature the generation signature of the round
+     * @param accountId the numeric account id of the plot-file
+     * @param chunkPartStartNonce the chunk part start nonce
+     * @param nonces the nonces, lowest result first
+     * @param results the results
+     */
+    public void sendResults(long blockNumber, byte[] generationSignature, long accountId, BigInteger chunkPartStartNonce, BigInteger[] nonces,
+                            BigInteger[] results) {
+        FarmConnection connection = this.connection;
+        if (connection != null) {
+            try {
+                connection.sendResults(blockNumber, generationSignature, accountId, chunkPartStartNonce, nonces, results);
+            } catch (IOException e) {
+                LOG.warn("Failed to send results to coordinator: " + e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Inform coordinator about finished round.
+     *
+     * @param blockNumber the block number
+     * @param generationSignature the generation signature of the round
+     * @param capacity the capacity
+     * @param roundTime the round time
+     */
+    public void roundFinished(long blockNumber, byte[] generationSignature, long capacity, long roundTime) {
+        FarmConnection connection = this.connection;
+        if (connection != null) {
+            try {
+                connection.sendRoundFinished(blockNumber, generationSignature, capacity, roundTime);
+            } catch (IOException e) {
+                LOG.warn("Failed to send round finished to coordinator: " + e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    private void connectLoop() {
+        String coordinatorServer = CoreProperties.getCoordinatorServer();
+        int separator = coordinatorServer.lastIndexOf(':');
+        String host = separator > 0 ? coordinatorServer.substring(0, separator) : coordinatorServer;
+        int port = separator > 0 ? Integer.parseInt(coordinatorServer.substring(separator + 1)) : CoreProperties.getCoordinatorPort();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+                try (FarmConnection connection = new FarmConnection(socket)) {
+                    connection.sendHello(CoreProperties.getAgentName(), reader.getPlots().getSize());
+                    this.connection = connection;
+                    LOG.info("Connected to coordinator '" + coordinatorServer + "' as '" + CoreProperties.getAgentName() + "'.");
+                    connection.read(new FarmConnection.FarmListener() {
+                        @Override
+                        public void onMiningInfo(long height, long baseTarget, long targetDeadline, byte[] generationSignature) {
+                            // same height with other generation signature restarts the round (fork)
+                            if (Agent.this.height < height
+                                    || Agent.this.height == height && !Arrays.equals(Agent.this.generationSignature, generationSignature)) {
+                                Agent.this.height = height;
+                                Agent.this.generationSignature = generationSignature;
+                                publisher.publishEvent(new NetworkStateChangeEvent(height, baseTarget, generationSignature, targetDeadline));
+                            }
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                LOG.warn("Connection to coordinator '" + coordinatorServer + "' lost: " + e.getMessage());
+            } finally {
+                connection = null;
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // already closed
+                }
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.farm;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.farm.event.AgentDisconnectedEvent;
+import burstcoin.jminer.core.farm.event.AgentResultEvent;
+import burstcoin.jminer.core.farm.event.AgentRoundFinishedEvent;
+import burstcoin.jminer.core.farm.util.FarmConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Coordinator of a farm, the network side for agents on other hosts.
+ * Agents get the mining info of every round and stream back the best nonces of their checked chunk-parts,
+ * which are published as events for round, so one submit policy covers all hosts.
+ */
+@Component
+@Scope("singleton")
+public class Coordinator {
+    private static final Logger LOG = LoggerFactory.getLogger(Coordinator.class);
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    private ServerSocket serverSocket;
+
+    private final Object lock = new Object();
+    // connected agents, by name
+    private final Map<String, AgentConnection> agents = new HashMap<>();
+
+    // mining info of current round, sent to agents connecting later
+    private long height;
+    private long baseTarget;
+    private long targetDeadline;
+    private byte[] generationSignature;
+
+    @PostConstruct
+    protected void postConstruct() {
+        if (!CoreProperties.isCoordinator()) {
+            return;
+        }
+        try {
+            serverSocket = new ServerSocket(CoreProperties.getCoordinatorPort());
+            Thread acceptThread = new Thread(this::acceptAgents, "coordinator");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+            LOG.info("Coordinator started on port '" + CoreProperties.getCoordinatorPort() + "'.");
+        } catch (IOException e) {
+            LOG.error("Coordinator failed to start: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    protected void preDestroy() {
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                LOG.debug("Coordinator failed to stop: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Start round on all connected agents.
+     *
+     * @param height the height
+     * @param baseTarget the base target
+     * @param targetDeadline the target deadline
+     * @param generationSignature the generation signature
+     * @return the capacity of the agents mining this round, by agent name
+     */
+    public Map<String, Long> startRound(long height, long baseTarget, long targetDeadline, byte[] generationSignature) {
+        if (serverSocket == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, AgentConnection> receivers;
+        synchronized (lock) {
+            this.height = height;
+            this.baseTarget = baseTarget;
+            this.targetDeadline = targetDeadline;
+            this.generationSignature = generationSignature;
+            receivers = new LinkedHashMap<>(agents);
+        }
+
+        Map<String, Long> capacities = new LinkedHashMap<>();
+        for (Map.Entry<String, AgentConnection> entry : receivers.entrySet()) {
+            try {
+                entry.getValue().connection.sendMiningInfo(height, baseTarget, targetDeadline, generationSignature);
+                capacities.put(entry.getKey(), entry.getValue().capacity);
+            } catch (IOException e) {
+                // reader thread of the agent notices too and cleans up
+                LOG.warn("Failed to send mining info to agent '" + entry.getKey() + "': " + e.getMessage());
+                entry.getValue().connection.close();
+            }
+        }
+        return capacities;
+    }
+
+    private void acceptAgents() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread agentThread = new Thread(() -> handleAgent(socket), "coordinator-" + socket.getPort());
+                agentThread.setDaemon(true);
+                agentThread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.warn("Coordinator failed to accept agent: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handleAgent(Socket socket) {
+        AgentConnection agent = new AgentConnection();
+        try (FarmConnection connection = new FarmConnection(socket)) {
+            agent.connection = connection;
+            connection.read(new FarmConnection.FarmListener() {
+                @Override
+                public void onHello(String name, long capacity)
+                        throws IOException {
+                    register(agent, name, capacity);
+                }
+
+                @Override
+                public void onResults(long height, byte[] generationSignature, long accountId, BigInteger chunkPartStartNonce, BigInteger[] nonces,
+                                      BigInteger[] results)
+                        throws IOException {
+                    if (agent.name == null) {
+                        throw new IOException("results before hello");
+                    }
+                    if (nonces.length > 0) {
+                        publisher.publishEvent(new AgentResultEvent(agent.name, height, generationSignature, accountId, chunkPartStartNonce, nonces, results));
+                    }
+                }
+
+                @Override
+                public void onRoundFinished(long height, byte[] generationSignature, long capacity, long roundTime)
+                        throws IOException {
+                    if (agent.name == null) {
+                        throw new IOException("round finished before hello");
+                    }
+                    agent.capacity = capacity;
+                    publisher.publishEvent(new AgentRoundFinishedEvent(agent.name, height, generationSignature, capacity, roundTime));
+                }
+            });
+        } catch (IOException e) {
+            LOG.debug("Agent connection '" + socket.getRemoteSocketAddress() + "' closed: " + e.getMessage());
+        }
+
+        if (agent.name != null) {
+            synchronized (lock) {
+                agents.remove(agent.name);
+            }
+            LOG.warn("agent '" + agent.name + "' disconnected.");
+            publisher.publishEvent(new AgentDisconnectedEvent(agent.name));
+        }
+    }
+
+    private void register(AgentConnection agent, String name, long capacity)
+            throws IOException {
+        boolean send;
+        long height;
+        long baseTarget;
+        long targetDeadline;
+        byte[] generationSignature;
+        synchronized (lock) {
+            // several agents on one host may share a name
+            agent.name = agents.containsKey(name) ? name + "@" + agent.connection.getRemoteAddress() : name;
+            agent.capacity = capacity;
+            agents.put(agent.name, agent);
+
+            send = this.generationSignature != null;
+            height = this.height;
+            baseTarget = this.baseTarget;
+            targetDeadline = this.targetDeadline;
+            generationSignature = this.generationSignature;
+        }
+        LOG.info("agent '" + agent.name + "' connected, capacity '" + capacity / 1000 / 1000 / 1000 + " GB'.");
+
+        // join running round
+        if (send) {
+            agent.connection.sendMiningInfo(height, baseTarget, targetDeadline, generationSignature);
+        }
+    }
+
+    private static final class AgentConnection {
+        private FarmConnection connection;
+        private volatile String name;
+        private volatile long capacity;
+    }
+}
@@ -20,32 +20,29 @@
  *
  */
 
-package burstcoin.jminer.core.reader.event;
+package burstcoin.jminer.core.farm.event;
 
 
-import java.math.BigInteger;
+import org.springframework.context.ApplicationEvent;
 
-public class ReaderLoadedPartEvent {
-    private BigInteger chunkPartStartNonce;
-    private long blockNumber;
-
-    private byte[] scoops;
-
-    public ReaderLoadedPartEvent(long blockNumber, byte[] scoops, BigInteger chunkPartStartNonce) {
-        this.chunkPartStartNonce = chunkPartStartNonce;
-        this.blockNumber = blockNumber;
-        this.scoops = scoops;
-    }
-
-    public long getBlockNumber() {
-        return blockNumber;
-    }
-
-    public byte[] getScoops() {
-        return scoops;
+/**
+ * fired by coordinator if an agent connection was lost
+ */
+public class AgentDisconnectedEvent extends ApplicationEvent {
+    private String agentName;
+
+    /**
+     * Instantiates a new Agent disconnected event.
+     *
+     * @param agentName the agent name
+     */
+    public AgentDisconnectedEvent(String agentName) {
+        super(agentName);
+
+        this.agentName = agentName;
     }
 
-    public BigInteger getChunkPartStartNonce() {
-        return chunkPartStartNonce;
+    public String getAgentName() {
+        return agentName;
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.farm.event;
+
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * fired by coordinator if an agent finished its round
+ */
+public class AgentRoundFinishedEvent extends ApplicationEvent {
+    private String agentName;
+    private long blockNumber;
+    private byte[] generationSignature;
+    private long capacity;
+    private long roundTime;
+
+    /**
+     * Instantiates a new Agent round finished event.
+     *
+     * @param agentName   the agent name
+     * @param blockNumber         the block number
+     * @param generationSignature the generation signature of the round
+     * @param capacity            the capacity of the agent
+     * @param roundTime           the round time measured by the agent
+     */
+    public AgentRoundFinishedEvent(String agentName, long blockNumber, byte[] generationSignature, long capacity, long roundTime) {
+        super(blockNumber);
+
+        this.agentName = agentName;
+        this.blockNumber = blockNumber;
+        this.generationSignature = generationSignature;
+        this.capacity = capacity;
+        this.roundTime = roundTime;
+    }
+
+    public String getAgentName() {
+        return agentName;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public byte[] getGenerationSignature() {
+        return generationSignature;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getRoundTime() {
+        return roundTime;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.farm.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.Socket;
+
+/**
+ * Connection between coordinator and agent, speaking a compact binary protocol.
+ * <p>
+ * Every message is one type byte followed by a fixed layout (big endian), nonces and results are unsigned 64bit:
+ * <pre>
+ * HELLO          agent to coordinator  int version, utf name, long capacity
+ * MINING_INFO    coordinator to agent  long height, long baseTarget, long targetDeadline, byte[32] generationSignature
+ * RESULTS        agent to coordinator  long height, byte[32] generationSignature, long accountId, long chunkPartStartNonce, byte count,
+ *                                      count x (long nonce, long result)
+ * ROUND_FINISHED agent to coordinator  long height, byte[32] generationSignature, long capacity, long roundTime
+ * </pre>
+ * Height and generation signature identify the round, on a fork the round restarts with same height.
+ */
+public class FarmConnection
+        implements Closeable {
+    public static final int VERSION = 3;
+
+    private static final byte HELLO = 1;
+    private static final byte MINING_INFO = 2;
+    private static final byte RESULTS = 3;
+    private static final byte ROUND_FINISHED = 4;
+
+    private static final BigInteger UNSIGNED_OFFSET = BigInteger.ONE.shiftLeft(64);
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Instantiates a new Farm connection.
+     *
+     * @param socket the connected socket
+     * @throws IOException the io exception
+     */
+    public FarmConnection(Socket socket)
+            throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    public String getRemoteAddress() {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    }
+
+    public synchronized void sendHello(String name, long capacity)
+            throws IOException {
+        out.writeByte(HELLO);
+        out.writeInt(VERSION);
+        out.writeUTF(name);
+        out.writeLong(capacity);
+        out.flush();
+    }
+
+    public synchronized void sendMiningInfo(long height, long baseTarget, long targetDeadline, byte[] generationSignature)
+            throws IOException {
+        out.writeByte(MINING_INFO);
+        out.writeLong(height);
+        out.writeLong(baseTarget);
+        out.writeLong(targetDeadline);
+        out.write(generationSignature, 0, 32);
+        out.flush();
+    }
+
+    public synchronized void sendResults(long height, byte[] generationSignature, long accountId, BigInteger chunkPartStartNonce, BigInteger[] nonces,
+                                         BigInteger[] results)
+            throws IOException {
+        int count = Math.min(Math.min(nonces.length, results.length), 255);
+        out.writeByte(RESULTS);
+        out.writeLong(height);
+        out.write(generationSignature, 0, 32);
+        out.writeLong(accountId);
+        out.writeLong(chunkPartStartNonce.longValue());
+        out.writeByte(count);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(nonces[i].longValue());
+            out.writeLong(results[i].longValue());
+        }
+        out.flush();
+    }
+
+    public synchronized void sendRoundFinished(long height, byte[] generationSignature, long capacity, long roundTime)
+            throws IOException {
+        out.writeByte(ROUND_FINISHED);
+        out.writeLong(height);
+        out.write(generationSignature, 0, 32);
+        out.writeLong(capacity);
+        out.writeLong(roundTime);
+        out.flush();
+    }
+
+    /**
+     * Read messages until connection is closed, called by one thread only.
+     *
+     * @param listener the listener
+     * @throws IOException on connection loss or protocol error
+     */
+    public void read(FarmListener listener)
+            throws IOException {
+        while (true) {
+            byte type = in.readByte();
+            switch (type) {
+                case HELLO:
+                    int version = in.readInt();
+                    if (version != VERSION) {
+                        throw new IOException("unsupported protocol version '" + version + "'");
+                    }
+                    listener.onHello(in.readUTF(), in.readLong());
+                    break;
+                case MINING_INFO:
+                    long height = in.readLong();
+                    long baseTarget = in.readLong();
+                    long targetDeadline = in.readLong();
+                    listener.onMiningInfo(height, baseTarget, targetDeadline, readGenerationSignature());
+                    break;
+                case RESULTS:
+                    long resultHeight = in.readLong();
+                    byte[] resultGenerationSignature = readGenerationSignature();
+                    long accountId = in.readLong();
+                    BigInteger chunkPartStartNonce = unsigned(in.readLong());
+                    int count = in.readUnsignedByte();
+                    BigInteger[] nonces = new BigInteger[count];
+                    BigInteger[] results = new BigInteger[count];
+                    for (int i = 0; i < count; i++) {
+                        nonces[i] = unsigned(in.readLong());
+                        results[i] = unsigned(in.readLong());
+                    }
+                    listener.onResults(resultHeight, resultGenerationSignature, accountId, chunkPartStartNonce, nonces, results);
+                    break;
+                case ROUND_FINISHED:
+                    long finishedHeight = in.readLong();
+                    listener.onRoundFinished(finishedHeight, readGenerationSignature(), in.readLong(), in.readLong());
+                    break;
+                default:
+                    throw new IOException("unknown message type '" + type + "'");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    private byte[] readGenerationSignature()
+            throws IOException {
+        byte[] generationSignature = new byte[32];
+        in.readFully(generationSignature);
+        return generationSignature;
+    }
+
+    private static BigInteger unsigned(long value) {
+        BigInteger bigInteger = BigInteger.valueOf(value);
+        return value < 0 ? bigInteger.add(UNSIGNED_OFFSET) : bigInteger;
+    }
+
+    /**
+     * Receives messages of a farm connection, each side implements the messages it expects.
+     */
+    public interface FarmListener {
+        default void onHello(String name, long capacity)
+                throws IOException {
+            throw new IOException("unexpected hello");
+        }
+
+        default void onMiningInfo(long height, long baseTarget, long targetDeadline, byte[] generationSignature)
+                throws IOException {
+            throw new IOException("unexpected mining info");
+        }
+
+        default void onResults(long height, byte[] generationSignature, long accountId, BigInteger chunkPartStartNonce, BigInteger[] nonces,
+                               BigInteger[] results)
+                throws IOException {
+            throw new IOException("unexpected results");
+        }
+
+        default void onRoundFinished(long height, byte[] generationSignature, long capacity, long roundTime)
+                throws IOException {
+            throw new IOException("unexpected round finished");
+        }
+    }
+}
@@ -23,7 +23,10 @@
 package burstcoin.jminer.core.network;
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.MiningAccount;
+import burstcoin.jminer.core.network.event.NetworkLastWinnerEvent;
 import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
+import burstcoin.jminer.core.network.task.NetworkForwardPoolNonceTask;
 import burstcoin.jminer.core.network.task.NetworkRequestLastWinnerTask;
 import burstcoin.jminer.core.network.task.NetworkRequestMiningInfoTask;
 import burstcoin.jminer.core.network.task.NetworkRequestPoolInfoTask;
@@ -31,6 +34,9 @@ import burstcoin.jminer.core.network.task.NetworkRequestTriggerServerTask;
 import burstcoin.jminer.core.network.task.NetworkSubmitPoolNonceTask;
 import burstcoin.jminer.core.network.task.NetworkSubmitSoloNonceFallbackTask;
 import burstcoin.jminer.core.network.task.NetworkSubmitSoloNonceTask;
+import burstcoin.jminer.core.network.util.BlockTimeEstimator;
+import burstcoin.jminer.core.network.util.NetworkConnections;
+import burstcoin.jminer.core.network.util.NetworkServers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,14 +44,18 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.event.EventListener;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import java.math.BigInteger;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
 
 @Component
 @Scope("singleton")
@@ -57,7 +67,17 @@ public class Network {
 
     @Autowired
     @Qualifier(value = "networkPool")
-    private SimpleAsyncTaskExecutor networkPool;
+    private ThreadPoolTaskExecutor networkPool;
+
+    @Autowired
+    private NetworkServers networkServers;
+
+    @Autowired
+    private NetworkConnections networkConnections;
+
+    @Autowired
+    @Qualifier(value = "networkScheduler")
+    private ThreadPoolTaskScheduler networkScheduler;
 
     private String numericAccountId;
     private boolean poolMining;
@@ -75,11 +95,19 @@ public class Network {
     private long winnerRetryIntervalInMs;
 
     private long blockNumber;
-    private Timer timer;
+    private final BlockTimeEstimator blockTimeEstimator = new BlockTimeEstimator();
+
+    // submit pipeline, one submit in flight per account and block
+    private final Object submitLock = new Object();
+    // by numeric account id
+    private final Map<String, SubmitQueue> submitQueues = new HashMap<>();
 
     @PostConstruct
     protected void postConstruct() {
-        timer = new Timer();
+        if (CoreProperties.isAgent()) {
+            // agents get mining info from coordinator and never submit
+            return;
+        }
         poolMining = CoreProperties.isPoolMining();
         if (poolMining) {
             String poolServer = CoreProperties.getPoolServer();
@@ -114,12 +142,35 @@ public class Network {
 
     @EventListener
     public void handleMessage(NetworkStateChangeEvent event) {
-        blockNumber = event.getBlockNumber();
+        if (blockNumber == event.getBlockNumber()) {
+            // fork, pending results of the replaced generation signature would only be rejected
+            synchronized (submitLock) {
+                for (SubmitQueue queue : submitQueues.values()) {
+                    queue.pending = null;
+                }
+            }
+        } else {
+            blockNumber = event.getBlockNumber();
+            blockTimeEstimator.onBlock(blockNumber, System.currentTimeMillis());
+        }
+        LOG.debug("servers: " + networkServers.getStats() + ", expected block time '" + blockTimeEstimator.getExpectedBlockTime() / 1000 + " sec.'");
+        // ensure submits of the new round find a warm connection
+        if (!CoreProperties.isAgent()) {
+            networkConnections.warmUp(connectionTimeout);
+        }
+    }
+
+    @EventListener
+    public void handleMessage(NetworkLastWinnerEvent event) {
+        blockTimeEstimator.onBlockTimestamp(event.getLastBlockNumber(), event.getBlockTimestamp());
     }
 
     public void checkNetworkState() {
-        String server = poolMining ? poolServer : soloServer;
-        if (!StringUtils.isEmpty(server)) {
+        if (StringUtils.isEmpty(poolMining ? poolServer : soloServer)) {
+            return;
+        }
+        // race all servers, first new block wins
+        for (String server : networkServers.getServers()) {
             NetworkRequestMiningInfoTask networkRequestMiningInfoTask = context.getBean(NetworkRequestMiningInfoTask.class);
             networkRequestMiningInfoTask.init(server, blockNumber, poolMining, connectionTimeout, defaultTargetDeadline);
             networkPool.execute(networkRequestMiningInfoTask);
@@ -153,52 +204,202 @@ public class Network {
         }
     }
 
-    public void commitResult(long blockNumber, long calculatedDeadline, BigInteger nonce, BigInteger chunkPartStartNonce, long totalCapacity, BigInteger result) {
-        if (poolMining) {
+    /**
+     * Commit result, submits of a block are sent one at a time per account.
+     * While a submit is in flight only the best further result is kept, worse ones are dropped as superseded.
+     * Superseded is returned to the caller instead of published, the caller may be the round thread.
+     *
+     * @return result superseded by this commit (maybe the committed one), null if none
+     */
+    public BigInteger commitResult(MiningAccount account, long blockNumber, long calculatedDeadline, BigInteger nonce, BigInteger chunkPartStartNonce,
+                             long totalCapacity, BigInteger result) {
+        PendingSubmit submit = new PendingSubmit(account, blockNumber, calculatedDeadline, nonce, chunkPartStartNonce, totalCapacity, result);
+        PendingSubmit superseded = null;
+        boolean send = false;
+        synchronized (submitLock) {
+            SubmitQueue queue = submitQueues.computeIfAbsent(account.getNumericAccountId(), id -> new SubmitQueue());
+            if (blockNumber < queue.blockNumber) {
+                LOG.debug("dl '" + calculatedDeadline + "' of previous block not submitted.");
+                return null;
+            }
+            if (blockNumber > queue.blockNumber) {
+                // in flight submit of previous block is ignored on completion
+                queue.blockNumber = blockNumber;
+                queue.inFlight = false;
+                queue.pending = null;
+            }
+
+            if (!queue.inFlight) {
+                queue.inFlight = true;
+                send = true;
+            } else if (queue.pending == null || result.compareTo(queue.pending.result) < 0) {
+                superseded = queue.pending;
+                queue.pending = submit;
+            } else {
+                superseded = submit;
+            }
+        }
+
+        if (send) {
+            submit(submit);
+        }
+        if (superseded != null) {
+            LOG.debug("dl '" + superseded.calculatedDeadline + "' superseded, not submitted.");
+            return superseded.result;
+        }
+        return null;
+    }
+
+    /**
+     * Forward result of a downstream miner to pool (proxy mode), not part of the own round.
+     *
+     * @param blockNumber the block number
+     * @param accountId the numeric account id of downstream miner
+     * @param nonce the nonce
+     * @param calculatedDeadline the calculated deadline
+     * @param capacity the capacity reported by downstream miner, or null
+     * @param finishedCallback gets the confirmed deadline, -1 if not confirmed
+     */
+    public void forwardResult(long blockNumber, String accountId, String nonce, long calculatedDeadline, String capacity, LongConsumer finishedCallback) {
+        NetworkForwardPoolNonceTask networkForwardPoolNonceTask = context.getBean(NetworkForwardPoolNonceTask.class);
+        networkForwardPoolNonceTask.init(blockNumber, accountId, networkServers.getServers(), connectionTimeout, nonce, calculatedDeadline, capacity,
+                finishedCallback);
+        networkPool.execute(networkForwardPoolNonceTask);
+    }
+
+    private void submitFinished(MiningAccount account, long blockNumber) {
+        PendingSubmit next = null;
+        synchronized (submitLock) {
+            SubmitQueue queue = submitQueues.get(account.getNumericAccountId());
+            if (blockNumber == queue.blockNumber) {
+                next = queue.pending;
+                queue.pending = null;
+                queue.inFlight = next != null;
+            }
+        }
+        if (next != null) {
+            submit(next);
+        }
+    }
+
+    private void submit(PendingSubmit submit) {
+        MiningAccount account = submit.account;
+        long blockNumber = submit.blockNumber;
+        long calculatedDeadline = submit.calculatedDeadline;
+        BigInteger nonce = submit.nonce;
+        BigInteger chunkPartStartNonce = submit.chunkPartStartNonce;
+        long totalCapacity = submit.totalCapacity;
+        BigInteger result = submit.result;
+
+        // additional accounts have their own server
+        List<String> servers = account.isPrimary() ? networkServers.getServers() : account.getServers();
+        if (account.isPoolMining()) {
             NetworkSubmitPoolNonceTask networkSubmitPoolNonceTask = context.getBean(NetworkSubmitPoolNonceTask.class);
-            networkSubmitPoolNonceTask.init(blockNumber, numericAccountId, poolServer, connectionTimeout, nonce,
-                    chunkPartStartNonce, calculatedDeadline, totalCapacity, result);
+            networkSubmitPoolNonceTask.init(blockNumber, account.getNumericAccountId(), servers, connectionTimeout, nonce,
+                    chunkPartStartNonce, calculatedDeadline, totalCapacity, result, () -> submitFinished(account, blockNumber));
             networkPool.execute(networkSubmitPoolNonceTask);
         } else {
             NetworkSubmitSoloNonceTask networkSubmitSoloNonceTask = context.getBean(NetworkSubmitSoloNonceTask.class);
-            networkSubmitSoloNonceTask.init(blockNumber, passPhrase, soloServer, connectionTimeout, nonce, chunkPartStartNonce, calculatedDeadline, result);
+            networkSubmitSoloNonceTask.init(blockNumber, account.getPassPhrase(), servers, connectionTimeout, nonce, chunkPartStartNonce, calculatedDeadline,
+                    result, () -> submitFinished(account, blockNumber));
             networkPool.execute(networkSubmitSoloNonceTask);
 
             if (CoreProperties.isRecommitDeadlines() && calculatedDeadline < 1200) {
-                // recommit #1 after 5 sec.
-                NetworkSubmitSoloNonceFallbackTask networkSubmitSoloNonceRecommitTask = context.getBean(NetworkSubmitSoloNonceFallbackTask.class);
-                networkSubmitSoloNonceRecommitTask.init(soloServer, 5000L, passPhrase, connectionTimeout, nonce, calculatedDeadline);
-                networkPool.execute(networkSubmitSoloNonceRecommitTask);
-
-                // recommit #2 after 10 sec.
-                NetworkSubmitSoloNonceFallbackTask networkSubmitSoloNonceRecommitTask2 = context.getBean(NetworkSubmitSoloNonceFallbackTask.class);
-                networkSubmitSoloNonceRecommitTask2.init(soloServer, 10000L, passPhrase, connectionTimeout, nonce, calculatedDeadline);
-                networkPool.execute(networkSubmitSoloNonceRecommitTask2);
-
-                // recommit #3 after 15 sec.
-                NetworkSubmitSoloNonceFallbackTask networkSubmitSoloNonceRecommitTask3 = context.getBean(NetworkSubmitSoloNonceFallbackTask.class);
-                networkSubmitSoloNonceRecommitTask3.init(soloServer, 15000L, passPhrase, connectionTimeout, nonce, calculatedDeadline);
-                networkPool.execute(networkSubmitSoloNonceRecommitTask3);
+                // recommit after 5, 10 and 15 sec.
+                for (long delay = 5000L; delay <= 15000L; delay += 5000L) {
+                    NetworkSubmitSoloNonceFallbackTask networkSubmitSoloNonceRecommitTask = context.getBean(NetworkSubmitSoloNonceFallbackTask.class);
+                    networkSubmitSoloNonceRecommitTask.init(servers.get(0), delay, account.getPassPhrase(), connectionTimeout, nonce, calculatedDeadline);
+                    networkScheduler.schedule(networkSubmitSoloNonceRecommitTask, new Date(System.currentTimeMillis() + delay));
+                }
             }
         }
     }
 
+    // long poll mining info, next request is sent when the previous finished
+    private void longPollNetworkState() {
+        String server = networkServers.getServer();
+        if (!StringUtils.isEmpty(poolMining ? poolServer : soloServer) && !StringUtils.isEmpty(server)) {
+            NetworkRequestMiningInfoTask networkRequestMiningInfoTask = context.getBean(NetworkRequestMiningInfoTask.class);
+            networkRequestMiningInfoTask.init(server, blockNumber, poolMining, connectionTimeout, defaultTargetDeadline);
+            networkRequestMiningInfoTask.initLongPoll(CoreProperties.getLongPollTimeout(), CoreProperties.getRefreshInterval(), this::longPollFinished);
+            networkPool.execute(networkRequestMiningInfoTask);
+        }
+    }
+
+    private void longPollFinished(NetworkRequestMiningInfoTask.LongPollResult result) {
+        switch (result) {
+            case UNSUPPORTED:
+                LOG.info("Server does not support long polling, fallback to polling every '" + CoreProperties.getRefreshInterval() + "' ms.");
+                pollNetworkState();
+                break;
+            case FAILED:
+                // wait like polling would, before asking again
+                networkScheduler.schedule(this::longPollNetworkState, new Date(System.currentTimeMillis() + CoreProperties.getRefreshInterval()));
+                break;
+            default:
+                longPollNetworkState();
+        }
+    }
+
+    private void pollNetworkState() {
+        if (CoreProperties.isAdaptiveRefresh()) {
+            networkScheduler.schedule(this::adaptivePollNetworkState, new Date(System.currentTimeMillis() + 100));
+        } else {
+            networkScheduler.scheduleAtFixedRate(this::checkNetworkState, new Date(System.currentTimeMillis() + 100), CoreProperties.getRefreshInterval());
+        }
+    }
+
+    // poll slow after new block, faster the closer the expected next block gets
+    private void adaptivePollNetworkState() {
+        checkNetworkState();
+        long now = System.currentTimeMillis();
+        long interval = blockTimeEstimator.getRefreshInterval(now, CoreProperties.getMinRefreshInterval(), CoreProperties.getMaxRefreshInterval());
+        networkScheduler.schedule(this::adaptivePollNetworkState, new Date(now + interval));
+    }
+
     public void startMining() {
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                checkNetworkState();
-            }
-        }, 100, CoreProperties.getRefreshInterval());
+        if (CoreProperties.isLongPolling()) {
+            longPollNetworkState();
+        } else {
+            pollNetworkState();
+        }
 
         // on solo mining
         if (!CoreProperties.isPoolMining() && CoreProperties.isTriggerServer()) {
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    triggerServer();
-                }
-            }, 5000, 25000);
+            networkScheduler.scheduleAtFixedRate(this::triggerServer, new Date(System.currentTimeMillis() + 5000), 25000);
+        }
+
+        long keepAliveInterval = CoreProperties.getKeepAliveInterval();
+        if (keepAliveInterval > 0) {
+            networkScheduler.scheduleAtFixedRate(() -> networkConnections.keepAlive(keepAliveInterval, connectionTimeout),
+                    new Date(System.currentTimeMillis() + keepAliveInterval), keepAliveInterval);
+        }
+    }
+
+    private static final class SubmitQueue {
+        private long blockNumber;
+        private boolean inFlight;
+        private PendingSubmit pending;
+    }
+
+    private static final class PendingSubmit {
+        private final MiningAccount account;
+        private final long blockNumber;
+        private final long calculatedDeadline;
+        private final BigInteger nonce;
+        private final BigInteger chunkPartStartNonce;
+        private final long totalCapacity;
+        private final BigInteger result;
+
+        private PendingSubmit(MiningAccount account, long blockNumber, long calculatedDeadline, BigInteger nonce, BigInteger chunkPartStartNonce,
+                              long totalCapacity, BigInteger result) {
+            this.account = account;
+            this.blockNumber = blockNumber;
+            this.calculatedDeadline = calculatedDeadline;
+            this.nonce = nonce;
+            this.chunkPartStartNonce = chunkPartStartNonce;
+            this.totalCapacity = totalCapacity;
+            this.result = result;
         }
     }
 }
@@ -30,6 +30,7 @@ import org.springframework.context.ApplicationEvent;
 public class NetworkLastWinnerEvent extends ApplicationEvent {
     private long lastBlockNumber;
     private String winner;
+    private int blockTimestamp;
 
     /**
      * Instantiates a new Network last winner event.
@@ -37,11 +38,13 @@ public class NetworkLastWinnerEvent extends ApplicationEvent {
      * @param source          the source
      * @param lastBlockNumber the last block number
      * @param winner          the winner
+     * @param blockTimestamp  the timestamp of last block, seconds since genesis
      */
-    public NetworkLastWinnerEvent(Object source, long lastBlockNumber, String winner) {
+    public NetworkLastWinnerEvent(Object source, long lastBlockNumber, String winner, int blockTimestamp) {
         super(source);
         this.lastBlockNumber = lastBlockNumber;
         this.winner = winner;
+        this.blockTimestamp = blockTimestamp;
     }
 
     /**
@@ -61,4 +64,13 @@ public class NetworkLastWinnerEvent extends ApplicationEvent {
     public String getWinner() {
         return winner;
     }
+
+    /**
+     * Gets timestamp of last block, seconds since genesis.
+     *
+     * @return the block timestamp
+     */
+    public int getBlockTimestamp() {
+        return blockTimestamp;
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.network.task;
+
+
+import burstcoin.jminer.core.network.model.ResponseError;
+import burstcoin.jminer.core.network.model.SubmitResultResponse;
+import burstcoin.jminer.core.network.util.NetworkConnections;
+import burstcoin.jminer.core.network.util.NetworkServers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Forwards a nonce submitted by a downstream miner to the pool (proxy mode).
+ * No result events are published, the nonce is not part of the own round.
+ */
+@Component
+@Scope("prototype")
+public class NetworkForwardPoolNonceTask implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkForwardPoolNonceTask.class);
+    private static final String HEADER_MINER_NAME = "burstcoin-jminer-0.4.10-proxy";
+
+    @Autowired
+    private HttpClient httpClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NetworkServers networkServers;
+
+    @Autowired
+    private NetworkConnections networkConnections;
+
+    private long connectionTimeout;
+
+    private String accountId;
+    private String nonce;
+    private List<String> poolServers;
+    private int serverIndex;
+    private String capacity;
+
+    private long blockNumber;
+    private long calculatedDeadline;
+    private LongConsumer finishedCallback;
+
+    /**
+     * Init.
+     *
+     * @param blockNumber the block number
+     * @param accountId the numeric account id of the downstream miner
+     * @param poolServers the pool servers, in failover order
+     * @param connectionTimeout the connection timeout
+     * @param nonce the nonce
+     * @param calculatedDeadline the deadline calculated by proxy
+     * @param capacity the capacity reported by downstream miner (X-Capacity), or null
+     * @param finishedCallback gets the confirmed deadline, -1 if not confirmed
+     */
+    public void init(long blockNumber, String accountId, List<String> poolServers, long connectionTimeout, String nonce, long calculatedDeadline,
+                     String capacity, LongConsumer finishedCallback) {
+        this.connectionTimeout = connectionTimeout;
+
+        this.poolServers = poolServers;
+        this.accountId = accountId;
+        this.nonce = nonce;
+        this.capacity = capacity;
+
+        this.blockNumber = blockNumber;
+        this.calculatedDeadline = calculatedDeadline;
+        this.finishedCallback = finishedCallback;
+    }
+
+    @Override
+    public void run() {
+        String server = poolServers.get(serverIndex);
+        long startTime = System.currentTimeMillis();
+
+        try {
+            Request request = httpClient.POST(server + "/burst")
+                    .param("requestType", "submitNonce")
+                    .param("accountId", accountId)
+                    .param("nonce", nonce)
+                    .header("X-Miner", HEADER_MINER_NAME)
+                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS);
+            if (capacity != null) {
+                request.header("X-Capacity", capacity);
+            }
+            networkConnections.send(server, request, new BufferingResponseListener() {
+                @Override
+                public void onComplete(Result result) {
+                    if (result.isSucceeded()) {
+                        networkServers.success(server, System.currentTimeMillis() - startTime, 0);
+                        finishedCallback.accept(onSubmitResult(getContentAsString()));
+                    } else {
+                        networkServers.failure(server);
+                        if (serverIndex + 1 < poolServers.size()) {
+                            serverIndex++;
+                            LOG.debug("Failed to forward dl '" + calculatedDeadline + "' (" + result.getFailure().getMessage() + "), try '"
+                                    + poolServers.get(serverIndex) + "' ...");
+                            run();
+                        } else {
+                            LOG.warn("Error: Failed to forward dl '" + calculatedDeadline + "' of account '" + accountId + "' to pool: "
+                                    + result.getFailure().getMessage());
+                            finishedCallback.accept(-1L);
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // request not sent (e.g. malformed server url), no completion will follow
+            LOG.warn("Error: Failed to forward dl '" + calculatedDeadline + "' of account '" + accountId + "' to pool: " + e.getMessage());
+            finishedCallback.accept(-1L);
+        }
+    }
+
+    private long onSubmitResult(String responseContentAsString) {
+        try {
+            if (responseContentAsString.contains("errorCode")) {
+                ResponseError error = objectMapper.readValue(responseContentAsString, ResponseError.class);
+                LOG.info("forwarded dl '" + calculatedDeadline + "' of account '" + accountId + "' not accepted by pool!");
+                LOG.debug("Error code: '" + error.getErrorCode() + "', description: '" + error.getErrorDescription() + "'.");
+            } else {
+                SubmitResultResponse result = objectMapper.readValue(responseContentAsString, SubmitResultResponse.class);
+                if (result.getResult().equals("success")) {
+                    if (calculatedDeadline != result.getDeadline()) {
+                        LOG.warn("forwarded dl '" + calculatedDeadline + "' of account '" + accountId + "' confirmed as '" + result.getDeadline()
+                                + "' for block '" + blockNumber + "'");
+                    }
+                    return result.getDeadline();
+                }
+                LOG.warn("Error: Forward nonce to pool not successful: " + responseContentAsString);
+            }
+        } catch (Exception e) {
+            LOG.warn("Error: On forward nonce to pool, could not parse response: '" + responseContentAsString + "'");
+            LOG.debug("Exception: " + e.getMessage(), e);
+        }
+        return -1L;
+    }
+}
@@ -28,8 +28,8 @@ import burstcoin.jminer.core.network.model.Blocks;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
-import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +44,8 @@ import java.util.concurrent.TimeUnit;
 @Scope("prototype")
 public class NetworkRequestAccountBlocksTask implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(NetworkRequestLastWinnerTask.class);
+    // all blocks of an account, response is buffered
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
 
     @Autowired
     private HttpClient httpClient;
@@ -66,37 +68,34 @@ public class NetworkRequestAccountBlocksTask implements Runnable {
 
     @Override
     public void run() {
-        Blocks accountBlocks = getAccountBlocks(accountId);
-        publisher.publishEvent(new NetworkBlocksEvent(accountBlocks));
-    }
-
-    private Blocks getAccountBlocks(String accountId) {
         LOG.info("Requesting mined blocks from wallet ...");
-        Blocks blocks = null;
-        try {
-            long connectionTimeout = CoreProperties.getConnectionTimeout() * 3;
-            InputStreamResponseListener listener = new InputStreamResponseListener();
+        long connectionTimeout = CoreProperties.getConnectionTimeout() * 3;
 
-            Request request = httpClient.newRequest(server + "/burst");
-            request.param("requestType", "getAccountBlocks");
-            request.param("account", accountId);
-            request.timeout(connectionTimeout, TimeUnit.MILLISECONDS);
-            request.send(listener);
-            Response response = listener.get(connectionTimeout, TimeUnit.MILLISECONDS);
+        Request request = httpClient.newRequest(server + "/burst");
+        request.param("requestType", "getAccountBlocks");
+        request.param("account", accountId);
+        request.timeout(connectionTimeout, TimeUnit.MILLISECONDS);
+        request.send(new BufferingResponseListener(MAX_CONTENT_LENGTH) {
+            @Override
+            public void onComplete(Result result) {
+                publisher.publishEvent(new NetworkBlocksEvent(getAccountBlocks(result, this)));
+            }
+        });
+    }
 
-            // Look at the response
-            if (response.getStatus() == 200) {
-                // Use try-with-resources to close input stream.
-                try (InputStream responseContent = listener.getInputStream()) {
-                    blocks = objectMapper.readValue(responseContent, Blocks.class);
+    private Blocks getAccountBlocks(Result result, BufferingResponseListener listener) {
+        Blocks blocks = null;
+        if (result.isFailed()) {
+            LOG.warn("Error: Failed to 'getAccountBlocks': " + result.getFailure().getMessage());
+        } else if (result.getResponse().getStatus() == 200) {
+            // Use try-with-resources to close input stream.
+            try (InputStream responseContent = listener.getContentAsInputStream()) {
+                blocks = objectMapper.readValue(responseContent, Blocks.class);
 
-                    LOG.info("Total mined blocks: '" + blocks.getBlocks().size() + "', received in '" + blocks.getRequestProcessingTime() + "' ms");
-                } catch (Exception e) {
-                    LOG.error("Failed to receive account blocks.", e);
-                }
+                LOG.info("Total mined blocks: '" + blocks.getBlocks().size() + "', received in '" + blocks.getRequestProcessingTime() + "' ms");
+            } catch (Exception e) {
+                LOG.error("Failed to receive account blocks.", e);
             }
-        } catch (Exception e) {
-            LOG.warn("Error: Failed to 'getAccountBlocks': " + e.getMessage());
         }
         return blocks;
     }
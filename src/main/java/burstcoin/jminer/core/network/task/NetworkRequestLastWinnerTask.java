@@ -27,15 +27,20 @@ import burstcoin.jminer.core.network.model.Block;
 import burstcoin.jminer.core.network.model.BlockchainStatus;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Scope;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 
+import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Component
 @Scope("prototype")
@@ -51,6 +56,10 @@ public class NetworkRequestLastWinnerTask implements Runnable {
     @Autowired
     private ApplicationEventPublisher publisher;
 
+    @Autowired
+    @Qualifier(value = "networkScheduler")
+    private ThreadPoolTaskScheduler networkScheduler;
+
     // data
     private long blockNumber; // updated on new round
     private String server;
@@ -69,73 +78,65 @@ public class NetworkRequestLastWinnerTask implements Runnable {
 
     @Override
     public void run() {
-        Block lastBlock = getLastBlock();
-        if (lastBlock != null) {
-            publisher.publishEvent(new NetworkLastWinnerEvent(this, lastBlock.getHeight(), lastBlock.getGeneratorRS()));
-        } else {
-            // todo event
-            LOG.info("      last winner 'N/A', walletServer out of sync.");
-        }
+        requestLastBlock(0);
     }
 
-    private Block getLastBlock() {
-        Block lastBlock = null;
-        BlockchainStatus blockChainStatus = getBlockChainStatus();
-        int retries = 0;
-        if (blockChainStatus != null) {
-            lastBlock = getBlock(blockChainStatus.getLastBlock());
-            if (lastBlock != null) {
-                while (blockNumber - 1 /*from pool*/ != lastBlock.getHeight()  /* from walletServer*/ && retries < winnerRetriesOnAsync) {
-                    retries++;
-
-                    if (retries == winnerRetriesOnAsync) {
-                        LOG.debug("lastBlock from walletServer outdated, last retry in " + winnerRetryIntervalInMs + "ms");
-                    } else {
-                        LOG.debug("lastBlock from walletServer outdated, retry-" + retries + " in " + winnerRetryIntervalInMs + "ms");
+    private void requestLastBlock(int retries) {
+        request(server + "/burst?requestType=getBlockchainStatus", "'getBlockchainStatus' from 'walletServer'", BlockchainStatus.class, blockchainStatus -> {
+            if (blockchainStatus == null) {
+                onLastBlock(null);
+                return;
+            }
+            request(server + "/burst?requestType=getBlock&block=" + blockchainStatus.getLastBlock(), "'getBlock'", Block.class, lastBlock -> {
+                if (lastBlock != null && blockNumber - 1 /*from pool*/ != lastBlock.getHeight()  /* from walletServer*/) {
+                    if (retries < winnerRetriesOnAsync) {
+                        int retry = retries + 1;
+                        if (retry == winnerRetriesOnAsync) {
+                            LOG.debug("lastBlock from walletServer outdated, last retry in " + winnerRetryIntervalInMs + "ms");
+                        } else {
+                            LOG.debug("lastBlock from walletServer outdated, retry-" + retry + " in " + winnerRetryIntervalInMs + "ms");
+                        }
+                        networkScheduler.schedule(() -> requestLastBlock(retry), new Date(System.currentTimeMillis() + winnerRetryIntervalInMs));
+                        return;
                     }
-
-                    try {
-                        Thread.sleep(winnerRetryIntervalInMs);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
+                    // still outdated after last retry
+                    if (retries > 0) {
+                        lastBlock = null;
                     }
-                    blockChainStatus = getBlockChainStatus();
-                    lastBlock = getBlock(blockChainStatus.getLastBlock());
                 }
-            }
-        }
-
-        return retries > 0 && winnerRetriesOnAsync == retries ? null : lastBlock;
+                onLastBlock(lastBlock);
+            });
+        });
     }
 
-    private BlockchainStatus getBlockChainStatus() {
-        BlockchainStatus blockchainStatus = null;
-        try {
-            ContentResponse response = httpClient.newRequest(server + "/burst?requestType=getBlockchainStatus")
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            blockchainStatus = objectMapper.readValue(response.getContentAsString(), BlockchainStatus.class);
-
-        } catch (Exception e) {
-            LOG.warn("Error: Failed to 'getBlockchainStatus' from 'walletServer' to find last winner.");
+    private void onLastBlock(Block lastBlock) {
+        if (lastBlock != null) {
+            publisher.publishEvent(new NetworkLastWinnerEvent(this, lastBlock.getHeight(), lastBlock.getGeneratorRS(), lastBlock.getTimestamp()));
+        } else {
+            // todo event
+            LOG.info("      last winner 'N/A', walletServer out of sync.");
         }
-        return blockchainStatus;
     }
 
-    private Block getBlock(String blockId) {
-        Block block = null;
-        try {
-            ContentResponse response = httpClient.newRequest(server + "/burst?requestType=getBlock&block=" + blockId)
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            String contentAsString = response.getContentAsString();
-
-            block = objectMapper.readValue(contentAsString, Block.class);
-        } catch (Exception e) {
-            LOG.warn("Error: Failed to 'getBlock' to find last winner.");
-        }
-        return block;
+    // async request, callback gets null on failure
+    private <T> void request(String url, String description, Class<T> responseType, Consumer<T> callback) {
+        httpClient.newRequest(url)
+                .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
+                .send(new BufferingResponseListener() {
+                    @Override
+                    public void onComplete(Result result) {
+                        T response = null;
+                        try {
+                            if (result.isSucceeded()) {
+                                response = objectMapper.readValue(getContentAsString(), responseType);
+                            } else {
+                                LOG.warn("Error: Failed to " + description + " to find last winner.");
+                            }
+                        } catch (Exception e) {
+                            LOG.warn("Error: Failed to " + description + " to find last winner.");
+                        }
+                        callback.accept(response);
+                    }
+                });
     }
 }
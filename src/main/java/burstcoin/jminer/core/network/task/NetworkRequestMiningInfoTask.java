@@ -24,10 +24,12 @@ package burstcoin.jminer.core.network.task;
 
 import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
 import burstcoin.jminer.core.network.model.MiningInfoResponse;
+import burstcoin.jminer.core.network.util.NetworkServers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nxt.util.Convert;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +41,7 @@ import java.io.EOFException;
 import java.net.ConnectException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * The type Network request mining info task.
@@ -57,6 +60,9 @@ public class NetworkRequestMiningInfoTask implements Runnable {
     @Autowired
     private ApplicationEventPublisher publisher;
 
+    @Autowired
+    private NetworkServers networkServers;
+
     private long blockNumber;
     private String server;
 
@@ -64,6 +70,11 @@ public class NetworkRequestMiningInfoTask implements Runnable {
     private long connectionTimeout;
     private long defaultTargetDeadline;
 
+    // long poll, if callback set
+    private long longPollTimeout;
+    private long longPollMinHold;
+    private Consumer<LongPollResult> longPollCallback;
+
     public void init(String server, long blockNumber, boolean poolMining, long connectionTimeout, long defaultTargetDeadline) {
         this.server = server;
         this.blockNumber = blockNumber;
@@ -73,23 +84,60 @@ public class NetworkRequestMiningInfoTask implements Runnable {
         this.defaultTargetDeadline = defaultTargetDeadline;
     }
 
+    /**
+     * Request mining info as long poll, server holds the request until a block newer than the known one arrives.
+     *
+     * @param longPollTimeout max time the server may hold the request
+     * @param longPollMinHold server answering unchanged mining info faster is considered to not support long polling
+     * @param longPollCallback called with the result once the request is finished
+     */
+    public void initLongPoll(long longPollTimeout, long longPollMinHold, Consumer<LongPollResult> longPollCallback) {
+        this.longPollTimeout = longPollTimeout;
+        this.longPollMinHold = longPollMinHold;
+        this.longPollCallback = longPollCallback;
+    }
+
     @Override
     public void run() {
         LOG.trace("start check network state");
 
-        MiningInfoResponse result;
-        try {
-            ContentResponse response = httpClient.newRequest(server + "/burst?requestType=getMiningInfo")
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
+        boolean longPoll = longPollCallback != null;
+        long startTime = System.currentTimeMillis();
+        httpClient.newRequest(server + "/burst?requestType=getMiningInfo" + (longPoll ? "&longPoll=" + blockNumber : ""))
+                .timeout(longPoll ? longPollTimeout + connectionTimeout : connectionTimeout, TimeUnit.MILLISECONDS)
+                .send(new BufferingResponseListener() {
+                    @Override
+                    public void onComplete(Result result) {
+                        LongPollResult longPollResult = LongPollResult.FAILED;
+                        if (result.isSucceeded()) {
+                            // held long poll does not tell the latency
+                            longPollResult = onMiningInfo(getContentAsString(), longPoll ? -1 : System.currentTimeMillis() - startTime);
+                        } else {
+                            handleFailure(result.getFailure());
+                        }
+
+                        if (longPoll) {
+                            if (longPollResult == LongPollResult.UNCHANGED && System.currentTimeMillis() - startTime < longPollMinHold) {
+                                // answered right away without a new block, request was not held
+                                longPollResult = LongPollResult.UNSUPPORTED;
+                            }
+                            longPollCallback.accept(longPollResult);
+                        }
+                    }
+                });
+    }
 
-            result = objectMapper.readValue(response.getContentAsString(), MiningInfoResponse.class);
+    private LongPollResult onMiningInfo(String content, long latency) {
+        try {
+            MiningInfoResponse result = objectMapper.readValue(content, MiningInfoResponse.class);
 
             if (result != null) {
                 long blockNumber = Convert.parseUnsignedLong(result.getHeight());
+                networkServers.success(server, latency, blockNumber);
 
-                if (blockNumber > this.blockNumber) {
-                    byte[] generationSignature = Convert.parseHexString(result.getGenerationSignature());
+                // first server with a new block publishes it, same height with other generation signature is a fork
+                byte[] generationSignature = Convert.parseHexString(result.getGenerationSignature());
+                if (blockNumber >= this.blockNumber && networkServers.claimRound(server, blockNumber, generationSignature)) {
                     long baseTarget = Convert.parseUnsignedLong(result.getBaseTarget());
 
                     // ensure default is not 0
@@ -97,25 +145,40 @@ public class NetworkRequestMiningInfoTask implements Runnable {
                     long targetDeadline = poolMining ? result.getTargetDeadline() > 0 ? result.getTargetDeadline() : defaultTargetDeadline : defaultTargetDeadline;
 
                     publisher.publishEvent(new NetworkStateChangeEvent(blockNumber, baseTarget, generationSignature, targetDeadline));
+                    return LongPollResult.NEW_BLOCK;
                 } else {
-                    LOG.trace("not publish NetworkStateChangeEvent ... '" + blockNumber + " <= " + this.blockNumber + "'");
+                    LOG.trace("not publish NetworkStateChangeEvent ... '" + blockNumber + "' already published");
+                    return LongPollResult.UNCHANGED;
                 }
             } else {
-                LOG.warn("Unable to parse mining info: " + response.getContentAsString());
+                LOG.warn("Unable to parse mining info: " + content);
             }
-        } catch (TimeoutException timeoutException) {
-            LOG.warn("Unable to get mining info from wallet, caused by connectionTimeout, currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
         } catch (Exception e) {
-            if (e instanceof ConnectException) {
-                LOG.warn("Unable to get mining info from wallet due ConnectException.");
-                LOG.debug("Unable to get mining info from wallet due ConnectException:" + e.getMessage(), e);
-            } else if (e instanceof EOFException) {
-                LOG.warn("Unable to get mining info from wallet due EOFException.");
-                LOG.debug("Unable to get mining info from wallet due EOFException:" + e.getMessage(), e);
-            } else {
-                LOG.warn("Unable to get mining info from wallet.");
-                LOG.debug("Unable to get mining info from wallet: " + e.getMessage(), e);
-            }
+            handleFailure(e);
+        }
+        return LongPollResult.FAILED;
+    }
+
+    private void handleFailure(Throwable e) {
+        networkServers.failure(server);
+        if (e instanceof TimeoutException) {
+            LOG.warn("Unable to get mining info from wallet, caused by connectionTimeout, currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
+        } else if (e instanceof ConnectException) {
+            LOG.warn("Unable to get mining info from wallet due ConnectException.");
+            LOG.debug("Unable to get mining info from wallet due ConnectException:" + e.getMessage(), e);
+        } else if (e instanceof EOFException) {
+            LOG.warn("Unable to get mining info from wallet due EOFException.");
+            LOG.debug("Unable to get mining info from wallet due EOFException:" + e.getMessage(), e);
+        } else {
+            LOG.warn("Unable to get mining info from wallet.");
+            LOG.debug("Unable to get mining info from wallet: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Result of a long poll request.
+     */
+    public enum LongPollResult {
+        NEW_BLOCK, UNCHANGED, UNSUPPORTED, FAILED
+    }
 }
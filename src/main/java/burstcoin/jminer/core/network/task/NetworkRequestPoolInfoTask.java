@@ -28,7 +28,8 @@ import burstcoin.jminer.core.network.model.AccountsWithRewardRecipient;
 import burstcoin.jminer.core.network.model.RewardRecipient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Component
 @Scope("prototype")
@@ -66,76 +68,47 @@ public class NetworkRequestPoolInfoTask implements Runnable {
 
     @Override
     public void run() {
-        String rewardRecipientAccountId = getRewardRecipientAccountId(accountId);
-        if (rewardRecipientAccountId != null) {
-            // number of registered miner accounts
-            List<String> accountIdsOfRewardRecipient = getAccountIdsOfRewardRecipient(rewardRecipientAccountId);
-            Account account = getAccount(rewardRecipientAccountId);
-            if (account != null) {
-                publisher.publishEvent(new NetworkPoolInfoEvent(account.getAccountRS(), account.getBalanceNQT(), account.getForgedBalanceNQT(),
-                        accountIdsOfRewardRecipient != null ? accountIdsOfRewardRecipient.size() : 0));
+        request("getRewardRecipient", accountId, RewardRecipient.class, rewardRecipient -> {
+            String rewardRecipientAccountId = rewardRecipient != null ? rewardRecipient.getRewardRecipient() : null;
+            if (rewardRecipientAccountId != null) {
+                // number of registered miner accounts
+                request("getAccountsWithRewardRecipient", rewardRecipientAccountId, AccountsWithRewardRecipient.class, accountsWithRewardRecipient -> {
+                    List<String> accountIdsOfRewardRecipient = accountsWithRewardRecipient != null ? accountsWithRewardRecipient.getAccounts() : null;
+                    request("getAccount", rewardRecipientAccountId, Account.class, account -> {
+                        if (account != null) {
+                            publisher.publishEvent(new NetworkPoolInfoEvent(account.getAccountRS(), account.getBalanceNQT(), account.getForgedBalanceNQT(),
+                                    accountIdsOfRewardRecipient != null ? accountIdsOfRewardRecipient.size() : 0));
+                        }
+                    });
+                });
             }
-        }
+        });
     }
 
-    private String getRewardRecipientAccountId(String accountId) {
-        RewardRecipient rewardRecipient = null;
-        try {
-            ContentResponse response = httpClient.newRequest(walletServer + "/burst?requestType=getRewardRecipient&account=" + accountId)
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            String contentAsString = response.getContentAsString();
-
-            if (!contentAsString.contains("error")) {
-                rewardRecipient = objectMapper.readValue(contentAsString, RewardRecipient.class);
-            } else {
-                LOG.warn("Error: Failed to 'getRewardRecipient' for pool info: " + contentAsString);
-            }
-        } catch (Exception e) {
-            LOG.warn("Error: Failed to 'getRewardRecipient' for pool info: " + e.getMessage());
-        }
-        return rewardRecipient != null ? rewardRecipient.getRewardRecipient() : null;
-    }
-
-    private List<String> getAccountIdsOfRewardRecipient(String rewardRecipientAccountId) {
-        AccountsWithRewardRecipient accountsWithRewardRecipient = null;
-        try {
-            ContentResponse response = httpClient.newRequest(walletServer + "/burst?requestType=getAccountsWithRewardRecipient&account=" + rewardRecipientAccountId)
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            String contentAsString = response.getContentAsString();
-
-            if (!contentAsString.contains("error")) {
-                accountsWithRewardRecipient = objectMapper.readValue(contentAsString, AccountsWithRewardRecipient.class);
-            } else {
-                LOG.warn("Error: Failed to 'getAccountIdsOfRewardRecipient' for pool info: " + contentAsString);
-            }
-        } catch (Exception e) {
-            LOG.warn("Error: Failed to 'getAccountIdsOfRewardRecipient' for pool info: " + e.getMessage());
-        }
-        return accountsWithRewardRecipient != null ? accountsWithRewardRecipient.getAccounts() : null;
-    }
-
-    private Account getAccount(String accountId) {
-        Account account = null;
-        try {
-            ContentResponse response = httpClient.newRequest(walletServer + "/burst?requestType=getAccount&account=" + accountId)
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            String contentAsString = response.getContentAsString();
-
-            if (!contentAsString.contains("error")) {
-                account = objectMapper.readValue(contentAsString, Account.class);
-            } else {
-                LOG.warn("Error: Failed to 'getAccount' for pool info: " + contentAsString);
-            }
-        } catch (Exception e) {
-            LOG.warn("Error: Failed to 'getAccount' for pool info: " + e.getMessage());
-        }
-        return account;
+    // async request for given account, callback gets null on failure
+    private <T> void request(String requestType, String accountId, Class<T> responseType, Consumer<T> callback) {
+        httpClient.newRequest(walletServer + "/burst?requestType=" + requestType + "&account=" + accountId)
+                .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
+                .send(new BufferingResponseListener() {
+                    @Override
+                    public void onComplete(Result result) {
+                        T response = null;
+                        if (result.isSucceeded()) {
+                            String contentAsString = getContentAsString();
+                            if (!contentAsString.contains("error")) {
+                                try {
+                                    response = objectMapper.readValue(contentAsString, responseType);
+                                } catch (Exception e) {
+                                    LOG.warn("Error: Failed to '" + requestType + "' for pool info: " + e.getMessage());
+                                }
+                            } else {
+                                LOG.warn("Error: Failed to '" + requestType + "' for pool info: " + contentAsString);
+                            }
+                        } else {
+                            LOG.warn("Error: Failed to '" + requestType + "' for pool info: " + result.getFailure().getMessage());
+                        }
+                        callback.accept(response);
+                    }
+                });
     }
 }
-
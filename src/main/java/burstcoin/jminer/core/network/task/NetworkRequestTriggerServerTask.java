@@ -22,10 +22,9 @@
 
 package burstcoin.jminer.core.network.task;
 
-import burstcoin.jminer.core.network.model.BlockchainStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,9 +45,6 @@ public class NetworkRequestTriggerServerTask implements Runnable {
     @Autowired
     private HttpClient httpClient;
 
-    @Autowired
-    private ObjectMapper objectMapper;
-
     // data
     private String numericAccountId;
     private String server;
@@ -63,37 +59,24 @@ public class NetworkRequestTriggerServerTask implements Runnable {
     @Override
     public void run() {
         // imitate requests done by wallet
-        getBlockChainStatus();
-        getUnconfirmedTransactions(numericAccountId);
-        LOG.trace("wallet server triggered!");
+        request("getBlockchainStatus", server + "/burst?requestType=getBlockchainStatus&random=" + new Random().nextFloat());
+        request("getUnconfirmedTransactions",
+                server + "/burst?requestType=getUnconfirmedTransactions&accountId=" + numericAccountId + "&random=" + new Random().nextFloat());
     }
 
-    private BlockchainStatus getBlockChainStatus() {
-        BlockchainStatus blockchainStatus = null;
-        try {
-            ContentResponse response = httpClient.newRequest(server + "/burst?requestType=getBlockchainStatus&random=" + new Random().nextFloat())
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            blockchainStatus = objectMapper.readValue(response.getContentAsString(), BlockchainStatus.class);
-        } catch (Exception e) {
-            LOG.debug("Error: Failed to 'getBlockchainStatus' from 'soloServer' to trigger server.");
-        }
-        return blockchainStatus;
-    }
-
-    private void getUnconfirmedTransactions(String numericAccountId) {
-        try {
-            ContentResponse response = httpClient
-                    .newRequest(server + "/burst?requestType=getUnconfirmedTransactions&accountId=" + numericAccountId + "&random=" + new Random().nextFloat())
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            String contentAsString = response.getContentAsString();
-
-            LOG.trace(contentAsString);
-        } catch (Exception e) {
-            LOG.debug("Error: Failed to 'getUnconfirmedTransactions' to trigger server.");
-        }
+    private void request(String requestType, String url) {
+        httpClient.newRequest(url)
+                .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
+                .send(new BufferingResponseListener() {
+                    @Override
+                    public void onComplete(Result result) {
+                        if (result.isSucceeded()) {
+                            LOG.trace(getContentAsString());
+                            LOG.trace("wallet server triggered!");
+                        } else {
+                            LOG.debug("Error: Failed to '" + requestType + "' to trigger server.");
+                        }
+                    }
+                });
     }
 }
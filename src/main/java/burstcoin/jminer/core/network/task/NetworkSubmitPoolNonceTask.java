@@ -27,12 +27,15 @@ import burstcoin.jminer.core.network.event.NetworkResultConfirmedEvent;
 import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
 import burstcoin.jminer.core.network.model.ResponseError;
 import burstcoin.jminer.core.network.model.SubmitResultResponse;
+import burstcoin.jminer.core.network.util.NetworkConnections;
+import burstcoin.jminer.core.network.util.NetworkServers;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.HttpContentResponse;
 import org.eclipse.jetty.client.HttpResponseException;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,7 +45,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.EOFException;
 import java.math.BigInteger;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -64,10 +67,17 @@ public class NetworkSubmitPoolNonceTask implements Runnable {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private NetworkServers networkServers;
+
+    @Autowired
+    private NetworkConnections networkConnections;
+
     private long connectionTimeout;
 
     private BigInteger nonce;
-    private String poolServer;
+    private List<String> poolServers;
+    private int serverIndex;
     private String numericAccountId;
 
     private long blockNumber;
@@ -75,12 +85,13 @@ public class NetworkSubmitPoolNonceTask implements Runnable {
     private long calculatedDeadline;
     private long totalCapacity;
     private BigInteger result;
+    private Runnable finishedCallback;
 
-    public void init(long blockNumber, String numericAccountId, String poolServer, long connectionTimeout, BigInteger nonce, BigInteger chunkPartStartNonce,
-                     long calculatedDeadline, long totalCapacity, BigInteger result) {
+    public void init(long blockNumber, String numericAccountId, List<String> poolServers, long connectionTimeout, BigInteger nonce, BigInteger chunkPartStartNonce,
+                     long calculatedDeadline, long totalCapacity, BigInteger result, Runnable finishedCallback) {
         this.connectionTimeout = connectionTimeout;
 
-        this.poolServer = poolServer;
+        this.poolServers = poolServers;
         this.numericAccountId = numericAccountId;
         this.nonce = nonce;
 
@@ -89,33 +100,65 @@ public class NetworkSubmitPoolNonceTask implements Runnable {
         this.calculatedDeadline = calculatedDeadline;
         this.totalCapacity = totalCapacity;
         this.result = result;
+        this.finishedCallback = finishedCallback;
     }
 
     @Override
     public void run() {
-        String responseContentAsString = "N/A";
-        try {
-            long gb = totalCapacity / 1000 / 1000 / 1000;
+        String server = poolServers.get(serverIndex);
+        long startTime = System.currentTimeMillis();
+        long gb = totalCapacity / 1000 / 1000 / 1000;
 
-            ContentResponse response = httpClient.POST(poolServer + "/burst")
+        try {
+            Request request = httpClient.POST(server + "/burst")
                     .param("requestType", "submitNonce")
                     .param("accountId", numericAccountId)
                     .param("nonce", nonce.toString())
                     .header("X-Miner", HEADER_MINER_NAME)
                     .header("X-Capacity", String.valueOf(gb))
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            responseContentAsString = response.getContentAsString();
+                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS);
+            networkConnections.send(server, request, new BufferingResponseListener() {
+                @Override
+                public void onComplete(Result result) {
+                    boolean failover = false;
+                    try {
+                        if (result.isSucceeded()) {
+                            networkServers.success(server, System.currentTimeMillis() - startTime, 0);
+                            onSubmitResult(getContentAsString());
+                        } else {
+                            networkServers.failure(server);
+                            failover = failover(result.getFailure());
+                            if (!failover) {
+                                handleFailure(result.getFailure(), getContentAsString());
+                            }
+                        }
+                    } finally {
+                        if (!failover) {
+                            // next submit of the block can be sent
+                            finishedCallback.run();
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // request not sent (e.g. malformed server url), no completion will follow
+            if (!failover(e)) {
+                handleFailure(e, null);
+                finishedCallback.run();
+            }
+        }
+    }
 
-            if (response.getContentAsString().contains("errorCode")) {
-                ResponseError error = objectMapper.readValue(response.getContentAsString(), ResponseError.class);
+    private void onSubmitResult(String responseContentAsString) {
+        try {
+            if (responseContentAsString.contains("errorCode")) {
+                ResponseError error = objectMapper.readValue(responseContentAsString, ResponseError.class);
                 LOG.info("dl '" + calculatedDeadline + "' not accepted by pool!");
                 LOG.debug("Error code: '" + error.getErrorCode() + "'.");
                 LOG.debug("Error description: '" + error.getErrorDescription() + "'.");
                 publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, result));
             } else {
-                SubmitResultResponse result = objectMapper.readValue(response.getContentAsString(), SubmitResultResponse.class);
+                SubmitResultResponse result = objectMapper.readValue(responseContentAsString, SubmitResultResponse.class);
 
                 if (result.getResult().equals("success")) {
                     if (calculatedDeadline == result.getDeadline()) {
@@ -125,39 +168,44 @@ public class NetworkSubmitPoolNonceTask implements Runnable {
                         publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, result.getDeadline(), chunkPartStartNonce, this.result));
                     }
                 } else {
-                    LOG.warn("Error: Submit nonce to pool not successful: " + response.getContentAsString());
+                    LOG.warn("Error: Submit nonce to pool not successful: " + responseContentAsString);
                     publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
                 }
             }
-        } catch (TimeoutException timeoutException) {
-            LOG.warn("Nonce was committed to pool, but not confirmed ... caused by connectionTimeout,"
-                    + " currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
-            publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
-        } catch (ExecutionException e) {
-            // inform user about reward assignment issue
-            if (e.getCause() instanceof HttpResponseException) {
-                HttpResponseException responseException = (HttpResponseException) e.getCause();
-                if (responseException.getResponse() instanceof HttpContentResponse) {
-                    HttpContentResponse httpContentResponse = (HttpContentResponse) responseException.getResponse();
-                    LOG.warn("Error: Failed to submit nonce to pool: " + httpContentResponse.getContentAsString());
-                }
-            } else {
-                LOG.warn("Error: Failed to submit nonce to pool due ExecutionException.");
-                LOG.debug("ExecutionException: " + e.getMessage(), e);
-            }
-            publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
-        } catch (EOFException e) {
-            LOG.warn("Error: Failed to submit nonce to pool due EOFException.");
-            LOG.debug("EOFException: " + e.getMessage(), e);
-            publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
         } catch (JsonMappingException e) {
             LOG.warn("Error: On submit nonce to pool, could not parse response: '" + responseContentAsString + "'");
             LOG.debug("JSONMappingException: " + e.getMessage(), e);
             publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
         } catch (Exception e) {
+            handleFailure(e, responseContentAsString);
+        }
+    }
+
+    // resend to next server, if there is one
+    private boolean failover(Throwable e) {
+        if (serverIndex + 1 < poolServers.size()) {
+            serverIndex++;
+            LOG.info("Failed to submit dl '" + calculatedDeadline + "' (" + e.getMessage() + "), try '" + poolServers.get(serverIndex) + "' ...");
+            run();
+            return true;
+        }
+        return false;
+    }
+
+    private void handleFailure(Throwable e, String responseContentAsString) {
+        if (e instanceof TimeoutException) {
+            LOG.warn("Nonce was committed to pool, but not confirmed ... caused by connectionTimeout,"
+                    + " currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
+        } else if (e instanceof HttpResponseException) {
+            // inform user about reward assignment issue
+            LOG.warn("Error: Failed to submit nonce to pool: " + responseContentAsString);
+        } else if (e instanceof EOFException) {
+            LOG.warn("Error: Failed to submit nonce to pool due EOFException.");
+            LOG.debug("EOFException: " + e.getMessage(), e);
+        } else {
             LOG.warn("Error: Failed to submit nonce to pool due Exception.");
             LOG.debug("Exception: " + e.getMessage(), e);
-            publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
         }
+        publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
     }
 }
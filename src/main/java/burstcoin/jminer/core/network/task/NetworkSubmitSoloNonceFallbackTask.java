@@ -25,7 +25,8 @@ package burstcoin.jminer.core.network.task;
 import burstcoin.jminer.core.network.model.SubmitResultResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -71,32 +72,37 @@ public class NetworkSubmitSoloNonceFallbackTask implements Runnable {
 
     @Override
     public void run() {
-        // wait delay
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        // delay is waited by the scheduler executing this task
+        httpClient.POST(soloServer + "/burst")
+                .param("requestType", "submitNonce")
+                .param("secretPhrase", passPhrase)
+                .param("nonce", nonce.toString())
+                .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
+                .send(new BufferingResponseListener() {
+                    @Override
+                    public void onComplete(Result result) {
+                        if (result.isSucceeded()) {
+                            onSubmitResult(getContentAsString());
+                        } else if (result.getFailure() instanceof TimeoutException) {
+                            LOG.warn("Unable to recommit solo nonce, caused by connectionTimeout, currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
+                        } else {
+                            LOG.warn("Error: Failed to recommit solo nonce: " + result.getFailure().getMessage());
+                        }
+                    }
+                });
+    }
 
+    private void onSubmitResult(String content) {
         try {
-            ContentResponse response = httpClient.POST(soloServer + "/burst")
-                    .param("requestType", "submitNonce")
-                    .param("secretPhrase", passPhrase)
-                    .param("nonce", nonce.toString())
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
-
-            SubmitResultResponse result = objectMapper.readValue(response.getContentAsString(), SubmitResultResponse.class);
+            SubmitResultResponse result = objectMapper.readValue(content, SubmitResultResponse.class);
 
             if (result.getResult().equals("success")) {
                 if (calculatedDeadline == result.getDeadline()) {
                     LOG.info("recommit dl '" + result.getDeadline() + "' after '" + delay / 1000 + " sec.'");
                 }
             } else {
-                LOG.warn("Error: Recommit solo nonce not successful: " + response.getContentAsString());
+                LOG.warn("Error: Recommit solo nonce not successful: " + content);
             }
-        } catch (TimeoutException timeoutException) {
-            LOG.warn("Unable to recommit solo nonce, caused by connectionTimeout, currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
         } catch (Exception e) {
             LOG.warn("Error: Failed to recommit solo nonce: " + e.getMessage());
         }
@@ -25,9 +25,13 @@ package burstcoin.jminer.core.network.task;
 import burstcoin.jminer.core.network.event.NetworkResultConfirmedEvent;
 import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
 import burstcoin.jminer.core.network.model.SubmitResultResponse;
+import burstcoin.jminer.core.network.util.NetworkConnections;
+import burstcoin.jminer.core.network.util.NetworkServers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +40,7 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -56,7 +61,14 @@ public class NetworkSubmitSoloNonceTask implements Runnable {
     @Autowired
     private ObjectMapper objectMapper;
 
-    private String soloServer;
+    @Autowired
+    private NetworkServers networkServers;
+
+    @Autowired
+    private NetworkConnections networkConnections;
+
+    private List<String> soloServers;
+    private int serverIndex;
     private String passPhrase;
     private BigInteger nonce;
 
@@ -64,13 +76,14 @@ public class NetworkSubmitSoloNonceTask implements Runnable {
     private BigInteger chunkPartStartNonce;
     private long calculatedDeadline;
     private BigInteger result;
+    private Runnable finishedCallback;
     private long connectionTimeout;
 
-    public void init(long blockNumber, String passPhrase, String soloServer, long connectionTimeout, BigInteger nonce, BigInteger chunkPartStartNonce,
-                     long calculatedDeadline, BigInteger result) {
+    public void init(long blockNumber, String passPhrase, List<String> soloServers, long connectionTimeout, BigInteger nonce, BigInteger chunkPartStartNonce,
+                     long calculatedDeadline, BigInteger result, Runnable finishedCallback) {
         this.connectionTimeout = connectionTimeout;
 
-        this.soloServer = soloServer;
+        this.soloServers = soloServers;
         this.passPhrase = passPhrase;
         this.nonce = nonce;
 
@@ -78,20 +91,55 @@ public class NetworkSubmitSoloNonceTask implements Runnable {
         this.chunkPartStartNonce = chunkPartStartNonce;
         this.calculatedDeadline = calculatedDeadline;
         this.result = result;
+        this.finishedCallback = finishedCallback;
     }
 
     @Override
     public void run() {
+        String server = soloServers.get(serverIndex);
+        long startTime = System.currentTimeMillis();
         try {
-            ContentResponse response = httpClient.POST(soloServer + "/burst")
+            Request request = httpClient.POST(server + "/burst")
                     .param("requestType", "submitNonce")
                     .param("secretPhrase", passPhrase)
 //        .param("nonce", Convert.toUnsignedLong(nonce))
                     .param("nonce", nonce.toString())
-                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS)
-                    .send();
+                    .timeout(connectionTimeout, TimeUnit.MILLISECONDS);
+            networkConnections.send(server, request, new BufferingResponseListener() {
+                @Override
+                public void onComplete(Result result) {
+                    boolean failover = false;
+                    try {
+                        if (result.isSucceeded()) {
+                            networkServers.success(server, System.currentTimeMillis() - startTime, 0);
+                            onSubmitResult(getContentAsString());
+                        } else {
+                            networkServers.failure(server);
+                            failover = failover(result.getFailure());
+                            if (!failover) {
+                                handleFailure(result.getFailure());
+                            }
+                        }
+                    } finally {
+                        if (!failover) {
+                            // next submit of the block can be sent
+                            finishedCallback.run();
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // request not sent (e.g. malformed server url), no completion will follow
+            if (!failover(e)) {
+                handleFailure(e);
+                finishedCallback.run();
+            }
+        }
+    }
 
-            SubmitResultResponse result = objectMapper.readValue(response.getContentAsString(), SubmitResultResponse.class);
+    private void onSubmitResult(String content) {
+        try {
+            SubmitResultResponse result = objectMapper.readValue(content, SubmitResultResponse.class);
 
             if (result.getResult().equals("success")) {
                 if (calculatedDeadline == result.getDeadline()) {
@@ -100,12 +148,31 @@ public class NetworkSubmitSoloNonceTask implements Runnable {
                     publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, result.getDeadline(), chunkPartStartNonce, this.result));
                 }
             } else {
-                LOG.warn("Error: Submit solo nonce not successful: " + response.getContentAsString());
+                LOG.warn("Error: Submit solo nonce not successful: " + content);
+                publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
             }
-        } catch (TimeoutException timeoutException) {
-            LOG.warn("Unable to commit solo nonce, caused by connectionTimeout, currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
         } catch (Exception e) {
+            handleFailure(e);
+        }
+    }
+
+    // resend to next server, if there is one
+    private boolean failover(Throwable e) {
+        if (serverIndex + 1 < soloServers.size()) {
+            serverIndex++;
+            LOG.info("Failed to submit dl '" + calculatedDeadline + "' (" + e.getMessage() + "), try '" + soloServers.get(serverIndex) + "' ...");
+            run();
+            return true;
+        }
+        return false;
+    }
+
+    private void handleFailure(Throwable e) {
+        if (e instanceof TimeoutException) {
+            LOG.warn("Unable to commit solo nonce, caused by connectionTimeout, currently '" + (connectionTimeout / 1000) + " sec.' try increasing it!");
+        } else {
             LOG.warn("Error: Failed to submit solo nonce: " + e.getMessage());
         }
+        publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, nonce, calculatedDeadline, -1L /*not delivered*/, chunkPartStartNonce, this.result));
     }
 }
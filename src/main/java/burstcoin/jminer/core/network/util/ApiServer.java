@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.network.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Embedded server answering burst api requests ('/burst?requestType=...') asynchronously,
+ * requests are handed over to the handler and answered later by {@link #respond}.
+ */
+public class ApiServer {
+    private static final Logger LOG = LoggerFactory.getLogger(ApiServer.class);
+
+    private final ObjectMapper objectMapper;
+    private final QueuedThreadPool threadPool;
+    private final Server server;
+
+    /**
+     * Instantiates a new Api server.
+     *
+     * @param name the name, used for threads
+     * @param port the port
+     * @param objectMapper the object mapper
+     * @param handler the handler
+     */
+    public ApiServer(String name, int port, ObjectMapper objectMapper, ApiHandler handler) {
+        this.objectMapper = objectMapper;
+
+        threadPool = new QueuedThreadPool(64, 4);
+        threadPool.setName(name);
+        threadPool.setDaemon(true);
+        server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+                baseRequest.setHandled(true);
+                if (!"/burst".equals(target)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+                AsyncContext asyncContext = request.startAsync();
+                asyncContext.setTimeout(0);
+                handler.handle(asyncContext, request.getParameter("requestType"));
+            }
+        });
+    }
+
+    public void start()
+            throws Exception {
+        server.start();
+    }
+
+    public void stop() {
+        try {
+            server.stop();
+        } catch (Exception e) {
+            LOG.debug("Failed to stop server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Execute on server threads.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+        threadPool.execute(task);
+    }
+
+    /**
+     * Respond json content and complete the request.
+     *
+     * @param asyncContext the async context
+     * @param status the http status
+     * @param content the content
+     */
+    public void respond(AsyncContext asyncContext, int status, Map<String, Object> content) {
+        try {
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            response.setStatus(status);
+            response.setContentType("application/json");
+            response.getOutputStream().write(objectMapper.writeValueAsString(content).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.debug("Failed to respond: " + e.getMessage());
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * Error response content.
+     *
+     * @param errorCode the error code
+     * @param errorDescription the error description
+     * @return the content
+     */
+    public static Map<String, Object> error(int errorCode, String errorDescription) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("errorCode", errorCode);
+        error.put("errorDescription", errorDescription);
+        return error;
+    }
+
+    /**
+     * Handles api requests, each has to be answered by {@link #respond}.
+     */
+    public interface ApiHandler {
+        void handle(AsyncContext asyncContext, String requestType);
+    }
+}
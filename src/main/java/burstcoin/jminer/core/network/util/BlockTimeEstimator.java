@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.network.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Estimates the block time from recent block intervals, to poll mining info slow after a new block
+ * and faster the closer the expected next block gets.
+ * Intervals are taken from block timestamps if known, otherwise from the time new blocks were seen.
+ */
+public class BlockTimeEstimator {
+    // burst target block time
+    private static final long DEFAULT_BLOCK_TIME = 240000;
+    private static final int MAX_INTERVALS = 10;
+
+    // height -> interval to previous block in ms
+    private final TreeMap<Long, Long> intervals = new TreeMap<>();
+    // height -> timestamp in sec.
+    private final TreeMap<Long, Integer> timestamps = new TreeMap<>();
+
+    private long lastHeight;
+    private long lastBlockTime;
+
+    /**
+     * New block seen.
+     *
+     * @param height the height
+     * @param time the time it was seen
+     */
+    public synchronized void onBlock(long height, long time) {
+        if (height == lastHeight + 1 && !intervals.containsKey(height)) {
+            add(height, time - lastBlockTime);
+        }
+        lastHeight = height;
+        lastBlockTime = time;
+    }
+
+    /**
+     * Timestamp of a block known, replaces the interval seen for it.
+     *
+     * @param height the height
+     * @param timestamp the timestamp in sec.
+     */
+    public synchronized void onBlockTimestamp(long height, int timestamp) {
+        timestamps.put(height, timestamp);
+        Integer previous = timestamps.get(height - 1);
+        if (previous != null) {
+            add(height, (timestamp - previous) * 1000L);
+        }
+        Integer next = timestamps.get(height + 1);
+        if (next != null) {
+            add(height + 1, (next - timestamp) * 1000L);
+        }
+        while (timestamps.size() > MAX_INTERVALS + 1) {
+            timestamps.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Gets expected block time, median of recent intervals.
+     *
+     * @return the expected block time in ms
+     */
+    public synchronized long getExpectedBlockTime() {
+        if (intervals.isEmpty()) {
+            return DEFAULT_BLOCK_TIME;
+        }
+        List<Long> sorted = new ArrayList<>(intervals.values());
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    /**
+     * Gets the interval until next mining info request, from max. right after a block down to min. at expected block time.
+     *
+     * @param now the current time
+     * @param minInterval the min interval
+     * @param maxInterval the max interval
+     * @return the interval in ms
+     */
+    public synchronized long getRefreshInterval(long now, long minInterval, long maxInterval) {
+        if (lastBlockTime == 0) {
+            return minInterval;
+        }
+        double progress = Math.min(1d, (double) (now - lastBlockTime) / getExpectedBlockTime());
+        return Math.max(minInterval, Math.round(maxInterval - (maxInterval - minInterval) * progress));
+    }
+
+    private void add(long height, long interval) {
+        if (interval > 0) {
+            intervals.put(height, interval);
+            while (intervals.size() > MAX_INTERVALS) {
+                intervals.pollFirstEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.network.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.client.api.Destination;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+import org.eclipse.jetty.util.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.net.ssl.SSLEngine;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps one warm connection pinned per server, so submits do not pay for connection setup.
+ * Pinned connections are refreshed before the server closes them as idle.
+ */
+@Component
+@Scope("singleton")
+public class NetworkConnections {
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkConnections.class);
+
+    @Autowired
+    private HttpClient httpClient;
+
+    @Autowired
+    private NetworkServers networkServers;
+
+    private final Map<String, PinnedConnection> connections = new ConcurrentHashMap<>();
+    // ssl engine -> time tcp connection was opened, until handshake finished
+    private final Map<SSLEngine, Long> handshakeStarts = new ConcurrentHashMap<>();
+    // host:port -> duration of last handshake
+    private final Map<String, Long> handshakeTimes = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+
+    @PostConstruct
+    protected void postConstruct() {
+        enabled = CoreProperties.getKeepAliveInterval() > 0;
+        httpClient.addBean(new HandshakeTimer());
+    }
+
+    /**
+     * Open pinned connections to all servers, that have none.
+     * A first request is sent right away, tls handshake is done on first request.
+     *
+     * @param connectionTimeout the connection timeout
+     */
+    public void warmUp(long connectionTimeout) {
+        if (!enabled) {
+            return;
+        }
+        for (String server : networkServers.getServers()) {
+            PinnedConnection pinned = connections.get(server);
+            if (pinned == null || pinned.isClosed()) {
+                connect(server, (connected, connectTime) -> {
+                    if (connected != null && connected.busy.compareAndSet(false, true)) {
+                        ping(server, connected, connectTime, connectionTimeout);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Send a cheap request on idle pinned connections, to keep them open, reopen closed ones.
+     *
+     * @param keepAliveInterval interval this is called, connections idle more than half of it are refreshed
+     * @param connectionTimeout the connection timeout
+     */
+    public void keepAlive(long keepAliveInterval, long connectionTimeout) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, PinnedConnection> entry : connections.entrySet()) {
+            PinnedConnection pinned = entry.getValue();
+            if (!pinned.isClosed() && now - pinned.lastUsed >= keepAliveInterval / 2 && pinned.busy.compareAndSet(false, true)) {
+                ping(entry.getKey(), pinned, -1, connectionTimeout);
+            }
+        }
+        warmUp(connectionTimeout);
+    }
+
+    /**
+     * Send request on the pinned connection of the server, or on a new one if there is none or it is in use.
+     * Round trip of the request is logged, split into connect, tls and request time.
+     *
+     * @param server the server
+     * @param request the request
+     * @param listener the listener
+     */
+    public void send(String server, Request request, Response.CompleteListener listener) {
+        PinnedConnection pinned = connections.get(server);
+        if (!enabled) {
+            request.send(listener);
+        } else if (pinned != null && !pinned.isClosed() && pinned.busy.compareAndSet(false, true)) {
+            send(server, pinned, request, listener, 0);
+        } else if (pinned == null || pinned.isClosed()) {
+            connect(server, (connected, connectTime) -> {
+                if (connected != null && connected.busy.compareAndSet(false, true)) {
+                    send(server, connected, request, listener, connectTime);
+                } else {
+                    request.send(listener);
+                }
+            });
+        } else {
+            // pinned connection in use, take one from the pool
+            request.send(listener);
+        }
+    }
+
+    private void send(String server, PinnedConnection pinned, Request request, Response.CompleteListener listener, long connectTime) {
+        long startTime = System.currentTimeMillis();
+        request.onComplete(result -> {
+            pinned.release();
+            long requestTime = System.currentTimeMillis() - startTime;
+            long tlsTime = handshakeTime(server, requestTime);
+            LOG.debug("submit to '" + server + "' connect '" + connectTime + " ms', tls '" + tlsTime + " ms', request '" + (requestTime - tlsTime) + " ms'");
+        });
+        pinned.connection.send(request, listener);
+    }
+
+    private void ping(String server, PinnedConnection pinned, long connectTime, long connectionTimeout) {
+        long startTime = System.currentTimeMillis();
+        Request request = httpClient.newRequest(server + "/burst?requestType=getMiningInfo")
+                .timeout(connectionTimeout, TimeUnit.MILLISECONDS);
+        request.onComplete(result -> pinned.release());
+        pinned.connection.send(request, new BufferingResponseListener() {
+            @Override
+            public void onComplete(Result result) {
+                long requestTime = System.currentTimeMillis() - startTime;
+                long tlsTime = handshakeTime(server, requestTime);
+                if (result.isFailed()) {
+                    LOG.debug("keep alive of '" + server + "' failed: " + result.getFailure().getMessage());
+                    pinned.connection.close();
+                } else if (connectTime >= 0) {
+                    LOG.debug("connected to '" + server + "', connect '" + connectTime + " ms', tls '" + tlsTime + " ms'");
+                }
+            }
+        });
+    }
+
+    // handshake done during last request to server, 0 if none
+    private long handshakeTime(String server, long requestTime) {
+        Long tlsTime = handshakeTimes.remove(hostKey(server));
+        return tlsTime != null ? Math.min(tlsTime, requestTime) : 0;
+    }
+
+    private void connect(String server, ConnectCallback callback) {
+        URI uri = URI.create(server);
+        String scheme = uri.getScheme() != null ? uri.getScheme() : "http";
+        Destination destination = httpClient.getDestination(scheme, uri.getHost(), port(uri));
+
+        long startTime = System.currentTimeMillis();
+        destination.newConnection(new Promise<Connection>() {
+            @Override
+            public void succeeded(Connection connection) {
+                PinnedConnection pinned = new PinnedConnection(connection);
+                PinnedConnection previous = connections.put(server, pinned);
+                if (previous != null && !previous.busy.get()) {
+                    previous.connection.close();
+                }
+                callback.connected(pinned, System.currentTimeMillis() - startTime);
+            }
+
+            @Override
+            public void failed(Throwable e) {
+                LOG.debug("unable to connect to '" + server + "': " + e.getMessage());
+                callback.connected(null, 0);
+            }
+        });
+    }
+
+    private static String hostKey(String server) {
+        URI uri = URI.create(server);
+        return uri.getHost() + ":" + port(uri);
+    }
+
+    private static int port(URI uri) {
+        return uri.getPort() > 0 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private interface ConnectCallback {
+        void connected(PinnedConnection connection, long connectTime);
+    }
+
+    private static final class PinnedConnection {
+        private final Connection connection;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private volatile long lastUsed;
+
+        private PinnedConnection(Connection connection) {
+            this.connection = connection;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        private boolean isClosed() {
+            return connection.isClosed();
+        }
+
+        private void release() {
+            lastUsed = System.currentTimeMillis();
+            busy.set(false);
+        }
+    }
+
+    // measures tls handshake, from tcp connection opened until handshake finished
+    private final class HandshakeTimer implements org.eclipse.jetty.io.Connection.Listener, SslHandshakeListener {
+        @Override
+        public void onOpened(org.eclipse.jetty.io.Connection connection) {
+            if (connection instanceof SslConnection) {
+                handshakeStarts.put(((SslConnection) connection).getSSLEngine(), System.currentTimeMillis());
+            }
+        }
+
+        @Override
+        public void onClosed(org.eclipse.jetty.io.Connection connection) {
+            if (connection instanceof SslConnection) {
+                handshakeStarts.remove(((SslConnection) connection).getSSLEngine());
+            }
+        }
+
+        @Override
+        public void handshakeSucceeded(Event event) {
+            SSLEngine engine = event.getSSLEngine();
+            Long start = handshakeStarts.remove(engine);
+            if (start != null) {
+                handshakeTimes.put(engine.getPeerHost() + ":" + engine.getPeerPort(), System.currentTimeMillis() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.network.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servers of the mining mode, the configured pool/solo server first, followed by its failover servers.
+ * Keeps latency and error stats per server, servers failing or lagging behind are demoted for a while.
+ */
+@Component
+@Scope("singleton")
+public class NetworkServers {
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkServers.class);
+
+    // consecutive errors until a server is demoted
+    private static final int MAX_ERRORS = 3;
+    private static final long DEMOTION_TIME = 60000;
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final List<ServerStats> servers = new ArrayList<>();
+    // highest height published, mining info is published once per height and generation signature
+    private final AtomicLong height = new AtomicLong();
+    // generation signature published for highest height, and all seen at that height
+    private byte[] generationSignature;
+    private final List<byte[]> generationSignatures = new ArrayList<>();
+    // last reported by preferred server at highest height, it decides between forks
+    private byte[] preferredGenerationSignature;
+
+    @PostConstruct
+    protected void postConstruct() {
+        List<String> urls = new ArrayList<>();
+        if (CoreProperties.isPoolMining()) {
+            urls.add(CoreProperties.getPoolServer());
+            urls.addAll(CoreProperties.getPoolFailoverServers());
+        } else {
+            urls.add(CoreProperties.getSoloServer());
+            urls.addAll(CoreProperties.getSoloFailoverServers());
+        }
+        for (String url : urls) {
+            String server = url != null ? url.trim() : null;
+            if (!StringUtils.isEmpty(server) && find(server) == null) {
+                servers.add(new ServerStats(server));
+            }
+        }
+    }
+
+    /**
+     * Gets servers to use, demoted ones only if all are demoted.
+     *
+     * @return the servers in configured order
+     */
+    public List<String> getServers() {
+        long now = System.currentTimeMillis();
+        List<String> active = new ArrayList<>();
+        List<String> all = new ArrayList<>();
+        for (ServerStats stats : servers) {
+            if (!stats.isDemoted(now)) {
+                active.add(stats.server);
+            }
+            all.add(stats.server);
+        }
+        return Collections.unmodifiableList(!active.isEmpty() ? active : all);
+    }
+
+    /**
+     * Gets the first server to use.
+     *
+     * @return the server, null if none configured
+     */
+    public String getServer() {
+        List<String> servers = getServers();
+        return !servers.isEmpty() ? servers.get(0) : null;
+    }
+
+    /**
+     * Claim a round, only the first server reporting it publishes the mining info.
+     * <p>
+     * Same height with other generation signature (fork) is a new round, too. The preferred server (first not demoted)
+     * decides between forks, switching back to a generation signature seen before included. Other servers only publish a
+     * fork never seen before at that height, as long as the preferred server did not report that height, a lagging
+     * server serving a stale fork does not take over.
+     *
+     * @param server the server reporting
+     * @param height the height reported
+     * @param generationSignature the generation signature reported
+     * @return true if mining info of the round has to be published
+     */
+    public synchronized boolean claimRound(String server, long height, byte[] generationSignature) {
+        long current = this.height.get();
+        if (height < current) {
+            return false;
+        }
+        boolean preferred = server.equals(getServer());
+        boolean seen = false;
+        if (height > current) {
+            this.height.set(height);
+            generationSignatures.clear();
+            preferredGenerationSignature = null;
+        } else {
+            for (byte[] claimed : generationSignatures) {
+                seen |= Arrays.equals(claimed, generationSignature);
+            }
+            if (Arrays.equals(this.generationSignature, generationSignature)) {
+                if (preferred) {
+                    preferredGenerationSignature = generationSignature;
+                }
+                return false;
+            }
+            if (!preferred && (seen || preferredGenerationSignature != null)) {
+                return false;
+            }
+        }
+        if (preferred) {
+            preferredGenerationSignature = generationSignature;
+        }
+        if (!seen) {
+            generationSignatures.add(generationSignature);
+        }
+        this.generationSignature = generationSignature;
+        return true;
+    }
+
+    /**
+     * Server answered, lagging if its height is behind the highest known.
+     *
+     * @param server the server
+     * @param latency the latency in ms
+     * @param height the height reported, 0 if none
+     */
+    public void success(String server, long latency, long height) {
+        ServerStats stats = find(server);
+        if (stats != null) {
+            boolean lagging = height > 0 && height < this.height.get();
+            if (stats.update(latency, lagging)) {
+                LOG.info("Server '" + server + "' " + (lagging ? "lagging behind" : "failing") + ", demoted for '" + DEMOTION_TIME / 1000 + " sec.'");
+            }
+        }
+    }
+
+    /**
+     * Server request failed.
+     *
+     * @param server the server
+     */
+    public void failure(String server) {
+        ServerStats stats = find(server);
+        if (stats != null && stats.update(-1, true)) {
+            LOG.info("Server '" + server + "' failing, demoted for '" + DEMOTION_TIME / 1000 + " sec.'");
+        }
+    }
+
+    /**
+     * Gets stats of all servers, for logging.
+     *
+     * @return the stats
+     */
+    public String getStats() {
+        StringBuilder builder = new StringBuilder();
+        for (ServerStats stats : servers) {
+            builder.append(builder.length() > 0 ? ", " : "").append(stats);
+        }
+        return builder.toString();
+    }
+
+    private ServerStats find(String server) {
+        for (ServerStats stats : servers) {
+            if (stats.server.equals(server)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    private static final class ServerStats {
+        private final String server;
+        private long requests;
+        private long errors;
+        private int consecutiveErrors;
+        private double latencyAvg;
+        private long demotedUntil;
+
+        private ServerStats(String server) {
+            this.server = server;
+        }
+
+        // returns true if server got demoted
+        private synchronized boolean update(long latency, boolean error) {
+            requests++;
+            if (latency >= 0) {
+                latencyAvg = latencyAvg == 0 ? latency : latencyAvg + LATENCY_WEIGHT * (latency - latencyAvg);
+            }
+            if (!error) {
+                consecutiveErrors = 0;
+                return false;
+            }
+            errors++;
+            consecutiveErrors++;
+            if (consecutiveErrors >= MAX_ERRORS) {
+                consecutiveErrors = 0;
+                demotedUntil = System.currentTimeMillis() + DEMOTION_TIME;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean isDemoted(long now) {
+            return demotedUntil > now;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return server + " (" + Math.round(latencyAvg) + " ms, " + errors + "/" + requests + " errors" + (isDemoted(System.currentTimeMillis()) ? ", demoted" : "") + ")";
+        }
+    }
+}
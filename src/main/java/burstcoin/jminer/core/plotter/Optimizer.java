@@ -0,0 +1,378 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.plotter;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.util.DeadlineCalculator;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import nxt.util.Convert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pocminer.generate.MiningPlot;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Rewrites plot-files of a directory into optimized plot-files (stagger equals nonces), read with one seek per round.
+ * <p>
+ * Plot-files of an account with adjacent nonce ranges are merged into one file. Scoops are streamed from the sources
+ * through a buffer bounded by plotterMemory. Progress is kept next to the new file, an interrupted run continues where
+ * it stopped. Sources are only deleted, after deadlines of sampled nonces are the same in sources and new file.
+ */
+@Component
+@Scope("singleton")
+public class Optimizer {
+    private static final Logger LOG = LoggerFactory.getLogger(Optimizer.class);
+
+    private static final String PROGRESS_SUFFIX = ".progress";
+    // state of new file in progress, only verified files replace their sources
+    private static final String COPIED = "copied";
+    private static final String VERIFIED = "verified";
+    // scoops compared between sources and new file
+    private static final int VERIFY_SCOOPS = 256;
+    // nonces of new file compared with freshly plotted ones (expensive)
+    private static final int VERIFY_PLOTTED_NONCES = 4;
+
+    /**
+     * Optimize and merge plot-files of a directory.
+     *
+     * @param directory the plot directory
+     * @param scratchDirectory directory to build new files in (e.g. other drive, if plot drive is full), null uses plot directory
+     * @return true if all plot-files were optimized
+     */
+    public boolean optimize(String directory, String scratchDirectory) {
+        Path plotDirectory = Paths.get(directory);
+        Path workDirectory = scratchDirectory != null ? Paths.get(scratchDirectory) : plotDirectory;
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, (long) CoreProperties.getPlotterMemory() * 1024 * 1024));
+
+        // new files verified before interruption
+        boolean success = finishVerified(plotDirectory, workDirectory);
+        int optimized = 0;
+        for (List<PlotFile> run : collectRuns(plotDirectory)) {
+            if (run.size() > 1 || run.get(0).getNumberOfChunks() > 1) {
+                if (optimize(run, plotDirectory, workDirectory, buffer)) {
+                    optimized++;
+                } else {
+                    success = false;
+                }
+            }
+        }
+        LOG.info("Optimized '" + optimized + "' plot-files in '" + directory + "'" + (success ? "." : ", some failed."));
+        return success;
+    }
+
+    private boolean optimize(List<PlotFile> run, Path plotDirectory, Path workDirectory, ByteBuffer buffer) {
+        PlotFile first = run.get(0);
+        long nonces = 0;
+        List<String> sources = new ArrayList<>();
+        for (PlotFile plotFile : run) {
+            nonces += getNonces(plotFile);
+            sources.add(plotFile.getFilename());
+        }
+        String filename = Convert.toUnsignedLong(first.getAddress()) + "_" + first.getStartnonce() + "_" + nonces + "_" + nonces;
+        Path workPath = workDirectory.resolve(filename + PlotFile.WORK_SUFFIX);
+        Path progressPath = workDirectory.resolve(filename + PROGRESS_SUFFIX + PlotFile.WORK_SUFFIX);
+        if (Files.exists(plotDirectory.resolve(filename))) {
+            LOG.error("Plot-file '" + plotDirectory.resolve(filename) + "' already exists, overlapping plot-files?");
+            return false;
+        }
+
+        try {
+            // continue, if interrupted run had same sources
+            long done = 0;
+            Progress progress = Progress.read(progressPath);
+            if (progress != null && progress.sources.equals(sources) && Files.exists(workPath)) {
+                done = progress.done;
+            }
+            long size = nonces * MiningPlot.PLOT_SIZE;
+            if (done == 0 && Files.getFileStore(workDirectory).getUsableSpace() < size) {
+                LOG.error("Not enough space in '" + workDirectory + "' for '" + filename + "' (" + size + " bytes).");
+                return false;
+            }
+            LOG.info((done > 0 ? "Continue" : "Start") + " optimizing '" + sources + "' into '" + filename + "'.");
+
+            try (FileChannel out = FileChannel.open(workPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long offset = 0;
+                for (PlotFile plotFile : run) {
+                    try (FileChannel in = FileChannel.open(plotFile.getFilePath(), StandardOpenOption.READ)) {
+                        for (long chunk = 0; chunk < plotFile.getNumberOfChunks(); chunk++) {
+                            if (offset >= done) {
+                                copyChunk(in, chunk * plotFile.getStaggeramt() * MiningPlot.PLOT_SIZE, plotFile.getStaggeramt(), out, nonces, offset, buffer);
+                                out.force(false);
+                                new Progress(offset + plotFile.getStaggeramt(), false, sources).write(progressPath);
+                            }
+                            offset += plotFile.getStaggeramt();
+                        }
+                    }
+                    LOG.info("optimized '" + offset * 100 / nonces + "%' of '" + filename + "'");
+                }
+
+                if (!verify(run, out, nonces)) {
+                    LOG.error("Deadlines of '" + filename + "' differ from its sources, sources are kept.");
+                    // next run starts from scratch
+                    Files.deleteIfExists(progressPath);
+                    return false;
+                }
+            }
+            // from now on sources can be deleted, even if interrupted
+            new Progress(nonces, true, sources).write(progressPath);
+            finish(plotDirectory, workDirectory, filename, sources);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Optimizing '" + filename + "' failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // sources are deleted first, new file may only fit on plot drive without them
+    private static void finish(Path plotDirectory, Path workDirectory, String filename, List<String> sources)
+            throws IOException {
+        for (String source : sources) {
+            Files.deleteIfExists(plotDirectory.resolve(source));
+        }
+        Path workPath = workDirectory.resolve(filename + PlotFile.WORK_SUFFIX);
+        if (Files.exists(workPath)) {
+            Path plotWorkPath = plotDirectory.resolve(filename + PlotFile.WORK_SUFFIX);
+            if (!workPath.equals(plotWorkPath)) {
+                Files.move(workPath, plotWorkPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // rename within plot directory, miner never sees an incomplete file
+            Files.move(plotWorkPath, plotDirectory.resolve(filename), StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.deleteIfExists(workDirectory.resolve(filename + PROGRESS_SUFFIX + PlotFile.WORK_SUFFIX));
+        LOG.info("Optimized '" + sources + "' into '" + plotDirectory.resolve(filename) + "'.");
+    }
+
+    private static boolean finishVerified(Path plotDirectory, Path workDirectory) {
+        String progressSuffix = PROGRESS_SUFFIX + PlotFile.WORK_SUFFIX;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(workDirectory, "*" + progressSuffix)) {
+            for (Path progressPath : stream) {
+                String progressFilename = progressPath.getFileName().toString();
+                String filename = progressFilename.substring(0, progressFilename.length() - progressSuffix.length());
+                Progress progress = Progress.read(progressPath);
+                // copied but not verified files are verified again by the next optimize run
+                if (progress != null && progress.verified && progress.done == Long.valueOf(filename.split("_")[2])) {
+                    finish(plotDirectory, workDirectory, filename, progress.sources);
+                }
+            }
+            return true;
+        } catch (IOException | DirectoryIteratorException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            LOG.error("Finishing optimized plot-files in '" + workDirectory + "' failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // complete plot-files by account, with adjacent nonces grouped into runs
+    private static List<List<PlotFile>> collectRuns(Path plotDirectory) {
+        Map<Long, List<PlotFile>> plotFilesLookup = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(plotDirectory)) {
+            for (Path path : stream) {
+                if (!path.getFileName().toString().matches("\\d+_\\d+_\\d+_\\d+")) {
+                    continue;
+                }
+                try {
+                    PlotFile plotFile = new PlotFile(path, CoreProperties.getChunkPartNonces());
+                    if (Files.size(path) != plotFile.getSize()) {
+                        LOG.warn("Skipped incomplete plot-file '" + path + "'.");
+                    } else {
+                        plotFilesLookup.computeIfAbsent(plotFile.getAddress(), accountId -> new ArrayList<>()).add(plotFile);
+                    }
+                } catch (ArithmeticException | NumberFormatException | IOException e) {
+                    LOG.warn("Skipped plot-file '" + path + "': " + e.getMessage());
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            LOG.error(e.getMessage());
+        }
+
+        List<List<PlotFile>> runs = new ArrayList<>();
+        for (List<PlotFile> plotFiles : plotFilesLookup.values()) {
+            plotFiles.sort(Comparator.comparing(PlotFile::getStartnonce));
+            List<PlotFile> run = null;
+            BigInteger nextNonce = null;
+            for (PlotFile plotFile : plotFiles) {
+                if (run == null || !plotFile.getStartnonce().equals(nextNonce)) {
+                    run = new ArrayList<>();
+                    runs.add(run);
+                }
+                run.add(plotFile);
+                nextNonce = plotFile.getStartnonce().add(BigInteger.valueOf(getNonces(plotFile)));
+            }
+        }
+        return runs;
+    }
+
+    private static long getNonces(PlotFile plotFile) {
+        return plotFile.getNumberOfChunks() * plotFile.getStaggeramt();
+    }
+
+    // scoops of a chunk are stored one after another, each scoop goes to its own region of the optimized file
+    private static void copyChunk(FileChannel in, long chunkPosition, long stagger, FileChannel out, long nonces, long offset, ByteBuffer buffer)
+            throws IOException {
+        long scoopBytes = stagger * MiningPlot.SCOOP_SIZE;
+        if (scoopBytes <= buffer.capacity()) {
+            int scoopsPerRead = (int) Math.min(MiningPlot.SCOOPS_PER_PLOT, buffer.capacity() / scoopBytes);
+            for (int scoop = 0; scoop < MiningPlot.SCOOPS_PER_PLOT; scoop += scoopsPerRead) {
+                int scoops = Math.min(scoopsPerRead, MiningPlot.SCOOPS_PER_PLOT - scoop);
+                buffer.clear();
+                buffer.limit((int) (scoops * scoopBytes));
+                read(in, buffer, chunkPosition + scoop * scoopBytes);
+                for (int i = 0; i < scoops; i++) {
+                    buffer.limit((int) ((i + 1) * scoopBytes)).position((int) (i * scoopBytes));
+                    write(out, buffer, ((scoop + i) * nonces + offset) * MiningPlot.SCOOP_SIZE);
+                }
+            }
+        } else {
+            // scoop larger than buffer, copied in pieces
+            for (int scoop = 0; scoop < MiningPlot.SCOOPS_PER_PLOT; scoop++) {
+                for (long copied = 0; copied < scoopBytes; copied += buffer.capacity()) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), scoopBytes - copied));
+                    read(in, buffer, chunkPosition + scoop * scoopBytes + copied);
+                    buffer.flip();
+                    write(out, buffer, (scoop * nonces + offset) * MiningPlot.SCOOP_SIZE + copied);
+                }
+            }
+        }
+    }
+
+    private static boolean verify(List<PlotFile> run, FileChannel out, long nonces)
+            throws IOException {
+        Random random = new Random();
+        byte[] generationSignature = new byte[32];
+        ByteBuffer scoop = ByteBuffer.allocate(MiningPlot.SCOOP_SIZE);
+        for (int sample = 0; sample < VERIFY_SCOOPS + VERIFY_PLOTTED_NONCES; sample++) {
+            random.nextBytes(generationSignature);
+            int scoopNumber = random.nextInt(MiningPlot.SCOOPS_PER_PLOT);
+            // first and last nonce always
+            long offset = sample == 0 ? 0 : sample == 1 ? nonces - 1 : (long) (random.nextDouble() * nonces);
+
+            scoop.clear();
+            read(out, scoop, (scoopNumber * nonces + offset) * MiningPlot.SCOOP_SIZE);
+            long deadline = DeadlineCalculator.calcDeadline(generationSignature, scoop.array(), 1);
+
+            long expectedDeadline;
+            if (sample < VERIFY_SCOOPS) {
+                expectedDeadline = DeadlineCalculator.calcDeadline(generationSignature, readSourceScoop(run, offset, scoopNumber), 1);
+            } else {
+                long nonce = run.get(0).getStartnonce().longValue() + offset;
+                expectedDeadline = DeadlineCalculator.calcDeadline(run.get(0).getAddress(), nonce, generationSignature, scoopNumber, 1);
+            }
+            if (deadline != expectedDeadline) {
+                LOG.error("nonce at '" + offset + "' scoop '" + scoopNumber + "' deadline '" + deadline + "' expected '" + expectedDeadline + "'");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] readSourceScoop(List<PlotFile> run, long offset, int scoopNumber)
+            throws IOException {
+        for (PlotFile plotFile : run) {
+            if (offset < getNonces(plotFile)) {
+                long stagger = plotFile.getStaggeramt();
+                long position = (offset / stagger) * stagger * MiningPlot.PLOT_SIZE + (scoopNumber * stagger + offset % stagger) * MiningPlot.SCOOP_SIZE;
+                ByteBuffer scoop = ByteBuffer.allocate(MiningPlot.SCOOP_SIZE);
+                try (FileChannel in = FileChannel.open(plotFile.getFilePath(), StandardOpenOption.READ)) {
+                    read(in, scoop, position);
+                }
+                return scoop.array();
+            }
+            offset -= getNonces(plotFile);
+        }
+        throw new IllegalArgumentException("offset '" + offset + "' not within plot-files");
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("unexpected end of file");
+            }
+            position += read;
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // nonces copied to new file so far, by sources
+    private static final class Progress {
+        private final long done;
+        private final boolean verified;
+        private final List<String> sources;
+
+        private Progress(long done, boolean verified, List<String> sources) {
+            this.done = done;
+            this.verified = verified;
+            this.sources = sources;
+        }
+
+        private static Progress read(Path progressPath) {
+            try {
+                List<String> lines = Files.readAllLines(progressPath, StandardCharsets.US_ASCII);
+                return lines.size() < 2 ? null : new Progress(Long.valueOf(lines.get(0)), VERIFIED.equals(lines.get(1)),
+                                                              new ArrayList<>(lines.subList(2, lines.size())));
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        // replaced at once, interruption never leaves half a progress
+        private void write(Path progressPath)
+                throws IOException {
+            List<String> lines = new ArrayList<>();
+            lines.add(String.valueOf(done));
+            lines.add(verified ? VERIFIED : COPIED);
+            lines.addAll(sources);
+            Path tempPath = progressPath.resolveSibling(progressPath.getFileName() + PlotFile.WORK_SUFFIX);
+            Files.write(tempPath, lines, StandardCharsets.US_ASCII);
+            Files.move(tempPath, progressPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.plotter;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import fr.cryptohash.Shabal256;
+import nxt.util.Convert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pocminer.generate.MiningPlot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cpu plotter, creates optimized plot-files (stagger equals nonces) to be read with one seek per round.
+ * <p>
+ * Nonces are plotted in batches on all cores into a direct buffer, already ordered by scoop. While a batch is
+ * written, one scoop after another with a single large write each, the next batch is plotted into a second buffer.
+ */
+@Component
+@Scope("singleton")
+public class Plotter {
+    private static final Logger LOG = LoggerFactory.getLogger(Plotter.class);
+
+    // a direct buffer is indexed by int
+    private static final int MAX_BATCH_NONCES = Integer.MAX_VALUE / MiningPlot.PLOT_SIZE;
+
+    /**
+     * Plot an optimized plot-file, named 'accountId_startNonce_nonces_nonces'.
+     * The file is named '*.plotting' until finished, so the miner does not read it yet.
+     *
+     * @param accountId the numeric account id
+     * @param startNonce the start nonce
+     * @param nonces the number of nonces
+     * @param directory the plot directory
+     * @return true if plot-file was created
+     */
+    public boolean plot(long accountId, long startNonce, long nonces, String directory) {
+        String filename = Convert.toUnsignedLong(accountId) + "_" + startNonce + "_" + nonces + "_" + nonces;
+        Path plotFilePath = Paths.get(directory, filename);
+        Path workPath = Paths.get(directory, filename + PlotFile.WORK_SUFFIX);
+        if (Files.exists(plotFilePath)) {
+            LOG.error("Plot-file '" + plotFilePath + "' already exists.");
+            return false;
+        }
+
+        int threads = CoreProperties.getPlotterThreads();
+        // half of memory per buffer, one is written while the other is plotted
+        long memoryNonces = (long) CoreProperties.getPlotterMemory() * 1024 * 1024 / 2 / MiningPlot.PLOT_SIZE;
+        int batchNonces = (int) Math.max(1, Math.min(Math.min(nonces, MAX_BATCH_NONCES), memoryNonces));
+        LOG.info("Plotting '" + plotFilePath + "' with '" + threads + "' threads, '" + batchNonces + "' nonces per batch.");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService plotterPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "plotter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService writerPool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plotter-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        NoncePlotter[] noncePlotters = new NoncePlotter[threads];
+        for (int i = 0; i < threads; i++) {
+            noncePlotters[i] = new NoncePlotter();
+        }
+        ByteBuffer[] buffers = {ByteBuffer.allocateDirect(batchNonces * MiningPlot.PLOT_SIZE), ByteBuffer.allocateDirect(batchNonces * MiningPlot.PLOT_SIZE)};
+        List<Future<Void>> writes = new ArrayList<>();
+
+        long startTime = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(workPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int batchNumber = 0;
+            for (long batchStart = 0; batchStart < nonces; batchStart += batchNonces) {
+                ByteBuffer buffer = buffers[batchNumber++ % buffers.length];
+                int count = (int) Math.min(batchNonces, nonces - batchStart);
+
+                // buffer is free again, when its previous batch is written
+                if (writes.size() >= buffers.length) {
+                    writes.remove(0).get();
+                }
+
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    NoncePlotter noncePlotter = noncePlotters[i];
+                    int from = (int) ((long) count * i / threads);
+                    int to = (int) ((long) count * (i + 1) / threads);
+                    long firstNonce = startNonce + batchStart;
+                    tasks.add(() -> noncePlotter.plot(buffer, accountId, firstNonce, from, to, count));
+                }
+                for (Future<Void> task : plotterPool.invokeAll(tasks)) {
+                    task.get();
+                }
+
+                long offset = batchStart;
+                writes.add(writerPool.submit(() -> write(channel, buffer, nonces, offset, count)));
+
+                long plotted = batchStart + count;
+                long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+                LOG.info("plotted '" + plotted * 100 / nonces + "%' ... '" + plotted * 60000 / elapsedTime + "' nonces/min");
+            }
+            for (Future<Void> write : writes) {
+                write.get();
+            }
+            channel.force(false);
+        } catch (IOException | ExecutionException e) {
+            LOG.error("Plotting '" + plotFilePath + "' failed: " + e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            plotterPool.shutdownNow();
+            writerPool.shutdownNow();
+        }
+
+        try {
+            Files.move(workPath, plotFilePath);
+        } catch (IOException e) {
+            LOG.error("Renaming '" + workPath + "' failed: " + e.getMessage());
+            return false;
+        }
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        LOG.info("Plotted '" + plotFilePath + "' in '" + elapsedTime / 1000 + "s " + elapsedTime % 1000 + "ms'.");
+        return true;
+    }
+
+    // buffer holds scoops of the batch ordered by scoop, each scoop goes to its own region of the file
+    private static Void write(FileChannel channel, ByteBuffer buffer, long nonces, long batchStart, int count)
+            throws IOException {
+        ByteBuffer scoops = buffer.duplicate();
+        int scoopBytes = count * MiningPlot.SCOOP_SIZE;
+        for (int scoop = 0; scoop < MiningPlot.SCOOPS_PER_PLOT; scoop++) {
+            scoops.limit((scoop + 1) * scoopBytes).position(scoop * scoopBytes);
+            long position = (scoop * nonces + batchStart) * MiningPlot.SCOOP_SIZE;
+            while (scoops.hasRemaining()) {
+                position += channel.write(scoops, position);
+            }
+        }
+        return null;
+    }
+
+    // buffers of one plotter thread, reused for every nonce
+    private static final class NoncePlotter {
+        private final Shabal256 md = new Shabal256();
+        private final byte[] gendata = new byte[MiningPlot.PLOT_SIZE + 16];
+        private final byte[] finalhash = new byte[MiningPlot.HASH_SIZE];
+
+        private Void plot(ByteBuffer buffer, long accountId, long firstNonce, int from, int to, int count) {
+            ByteBuffer scoops = buffer.duplicate();
+            for (int i = from; i < to; i++) {
+                MiningPlot.plot(md, gendata, finalhash, accountId, firstNonce + i);
+                for (int scoop = 0; scoop < MiningPlot.SCOOPS_PER_PLOT; scoop++) {
+                    scoops.position((scoop * count + i) * MiningPlot.SCOOP_SIZE);
+                    scoops.put(gendata, scoop * MiningPlot.SCOOP_SIZE, MiningPlot.SCOOP_SIZE);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.proxy;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.util.DeadlineCalculator;
+import burstcoin.jminer.core.network.Network;
+import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
+import burstcoin.jminer.core.network.util.ApiServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nxt.util.Convert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool proxy, serves the mining info of the pool to downstream miners (getMiningInfo, with long poll).
+ * Deadlines of their submits are calculated and confirmed locally, only the best deadline per account and block
+ * is forwarded to the pool, so the pool sees one connection instead of many miners.
+ */
+@Component
+@Scope("singleton")
+public class Proxy {
+    private static final Logger LOG = LoggerFactory.getLogger(Proxy.class);
+
+    private static final long LONG_POLL_HOLD = 30000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Network network;
+
+    @Autowired
+    @Qualifier(value = "networkScheduler")
+    private ThreadPoolTaskScheduler networkScheduler;
+
+    private ApiServer server;
+
+    private final Object lock = new Object();
+    private final List<AsyncContext> longPolls = new ArrayList<>();
+    private ProxyBlock current;
+
+    @PostConstruct
+    protected void postConstruct() {
+        if (!CoreProperties.isProxy()) {
+            return;
+        }
+        if (!CoreProperties.isPoolMining()) {
+            // solo submits carry the passphrase, account of a deadline is unknown
+            LOG.error("Proxy only supports pool mining, proxy not started.");
+            return;
+        }
+
+        ApiServer apiServer = new ApiServer("proxy-http", CoreProperties.getProxyPort(), objectMapper, this::handle);
+        try {
+            apiServer.start();
+            server = apiServer;
+            LOG.info("Proxy started on port '" + CoreProperties.getProxyPort() + "'.");
+        } catch (Exception e) {
+            LOG.error("Proxy failed to start: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    protected void preDestroy() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @EventListener
+    public void handleMessage(NetworkStateChangeEvent event) {
+        if (server == null) {
+            return;
+        }
+
+        ProxyBlock block = new ProxyBlock(event.getBlockNumber(), event.getGenerationSignature(), event.getBaseTarget(), event.getTargetDeadline());
+        List<AsyncContext> waiting;
+        synchronized (lock) {
+            if (current != null) {
+                LOG.info(current.getStats());
+            }
+            current = block;
+            waiting = new ArrayList<>(longPolls);
+            longPolls.clear();
+        }
+        // new block ends all long polls
+        for (AsyncContext asyncContext : waiting) {
+            respondMiningInfo(asyncContext);
+        }
+    }
+
+    private void handle(AsyncContext asyncContext, String requestType) {
+        HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+        synchronized (lock) {
+            if (current == null) {
+                server.respond(asyncContext, HttpServletResponse.SC_SERVICE_UNAVAILABLE, ApiServer.error(503, "No mining info yet"));
+                return;
+            }
+        }
+
+        switch (requestType != null ? requestType : "") {
+            case "getMiningInfo":
+                miningInfo(asyncContext, request.getParameter("longPoll"));
+                break;
+            case "submitNonce":
+                // deadline calculation is expensive, do not block the selector
+                String accountId = request.getParameter("accountId");
+                String nonce = request.getParameter("nonce");
+                String capacity = request.getHeader("X-Capacity");
+                server.execute(() -> submitNonce(asyncContext, accountId, nonce, capacity));
+                break;
+            default:
+                server.respond(asyncContext, HttpServletResponse.SC_OK, ApiServer.error(1, "Incorrect request"));
+        }
+    }
+
+    private void miningInfo(AsyncContext asyncContext, String longPoll) {
+        synchronized (lock) {
+            if (longPoll != null && parseHeight(longPoll) >= current.height) {
+                // hold until next block
+                longPolls.add(asyncContext);
+                networkScheduler.schedule(() -> {
+                    boolean held;
+                    synchronized (lock) {
+                        held = longPolls.remove(asyncContext);
+                    }
+                    if (held) {
+                        respondMiningInfo(asyncContext);
+                    }
+                }, new Date(System.currentTimeMillis() + LONG_POLL_HOLD));
+                return;
+            }
+        }
+        respondMiningInfo(asyncContext);
+    }
+
+    private void respondMiningInfo(AsyncContext asyncContext) {
+        ProxyBlock block;
+        synchronized (lock) {
+            block = current;
+            block.miningInfoRequests++;
+        }
+        Map<String, Object> miningInfo = new LinkedHashMap<>();
+        miningInfo.put("generationSignature", Convert.toHexString(block.generationSignature));
+        miningInfo.put("baseTarget", String.valueOf(block.baseTarget));
+        miningInfo.put("height", String.valueOf(block.height));
+        miningInfo.put("targetDeadline", block.targetDeadline);
+        miningInfo.put("requestProcessingTime", 0);
+        server.respond(asyncContext, HttpServletResponse.SC_OK, miningInfo);
+    }
+
+    private void submitNonce(AsyncContext asyncContext, String accountId, String nonce, String capacity) {
+        long numericAccountId;
+        long numericNonce;
+        try {
+            numericAccountId = Long.parseUnsignedLong(accountId);
+            numericNonce = Long.parseUnsignedLong(nonce);
+        } catch (NumberFormatException e) {
+            server.respond(asyncContext, HttpServletResponse.SC_OK, ApiServer.error(3, "Missing or invalid nonce or accountId"));
+            return;
+        }
+
+        ProxyBlock block;
+        synchronized (lock) {
+            block = current;
+        }
+        long deadline = block.calculateDeadline(numericAccountId, numericNonce);
+
+        boolean forward;
+        synchronized (lock) {
+            forward = block.submitted(accountId, deadline);
+        }
+        if (forward) {
+            network.forwardResult(block.height, accountId, nonce, deadline, capacity, confirmedDeadline -> {
+                synchronized (lock) {
+                    block.forwarded(accountId, deadline, confirmedDeadline);
+                }
+            });
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("result", "success");
+        result.put("deadline", deadline);
+        result.put("requestProcessingTime", 0);
+        server.respond(asyncContext, HttpServletResponse.SC_OK, result);
+    }
+
+    private static long parseHeight(String height) {
+        try {
+            return Long.parseLong(height);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class ProxyBlock {
+        private final long height;
+        private final byte[] generationSignature;
+        private final long baseTarget;
+        private final long targetDeadline;
+        private final int scoopNumber;
+
+        // best forwarded deadline by account
+        private final Map<String, Long> bestDeadlines = new HashMap<>();
+
+        // stats
+        private int miningInfoRequests;
+        private int submits;
+        private int forwards;
+        private int confirmed;
+
+        private ProxyBlock(long height, byte[] generationSignature, long baseTarget, long targetDeadline) {
+            this.height = height;
+            this.generationSignature = generationSignature;
+            this.baseTarget = baseTarget;
+            this.targetDeadline = targetDeadline;
+            scoopNumber = DeadlineCalculator.calcScoopNumber(height, generationSignature);
+        }
+
+        private long calculateDeadline(long accountId, long nonce) {
+            return DeadlineCalculator.calcDeadline(accountId, nonce, generationSignature, scoopNumber, baseTarget);
+        }
+
+        // true if deadline has to be forwarded
+        private boolean submitted(String accountId, long deadline) {
+            submits++;
+            Long best = bestDeadlines.get(accountId);
+            if (deadline <= targetDeadline && (best == null || deadline < best)) {
+                bestDeadlines.put(accountId, deadline);
+                forwards++;
+                return true;
+            }
+            return false;
+        }
+
+        private void forwarded(String accountId, long deadline, long confirmedDeadline) {
+            if (confirmedDeadline != -1L) {
+                confirmed++;
+            } else {
+                // not delivered, next worse submit of account can be forwarded
+                bestDeadlines.remove(accountId, deadline);
+            }
+        }
+
+        private String getStats() {
+            return "proxy block '" + height + "': mining info requests '" + miningInfoRequests + "', accounts '" + bestDeadlines.size() + "'"
+                    + ", submits '" + submits + "', forwarded '" + forwards + "', confirmed '" + confirmed + "'";
+        }
+    }
+}
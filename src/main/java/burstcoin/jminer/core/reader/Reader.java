@@ -24,6 +24,7 @@ package burstcoin.jminer.core.reader;
 
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.MiningAccount;
 import burstcoin.jminer.core.network.event.NetworkBlocksEvent;
 import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
 import burstcoin.jminer.core.network.model.Block;
@@ -32,12 +33,12 @@ import burstcoin.jminer.core.reader.data.PlotDrive;
 import burstcoin.jminer.core.reader.data.PlotFile;
 import burstcoin.jminer.core.reader.data.Plots;
 import burstcoin.jminer.core.reader.event.ReaderCorruptFileEvent;
-import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveFinishEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveSlowEvent;
 import burstcoin.jminer.core.reader.event.ReaderProgressChangedEvent;
 import burstcoin.jminer.core.reader.event.ReaderStoppedEvent;
 import burstcoin.jminer.core.reader.task.ReaderLoadDriveTask;
-import nxt.crypto.Crypto;
-import nxt.util.Convert;
+import burstcoin.jminer.core.reader.util.DriveHealth;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,7 +46,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.event.EventListener;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -54,12 +54,17 @@ import javax.annotation.PostConstruct;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The type Reader.
@@ -78,22 +83,28 @@ public class Reader {
 
     @Autowired
     @Qualifier(value = "networkPool")
-    private SimpleAsyncTaskExecutor networkPool;
+    private ThreadPoolTaskExecutor networkPool;
 
     // config
-    private String numericAccountId;
+    private List<String> numericAccountIds;
     private List<String> directories;
     private long chunkPartNonces;
     private boolean scanPathsEveryRound;
+    private long roundTimeBudget;
+    private long driveSlowReadTime;
 
     // data
     public static volatile long blockNumber;
+    // same instance for the whole round, changes without new block on fork
+    public static volatile byte[] generationSignature;
     private Plots plots;
-    private Map<BigInteger, Long> capacityLookup;
-    private long remainingCapacity;
-    private long capacity;
-    private long readerStartTime;
+    private volatile ReadProgress progress;
     private int readerThreads;
+    private Timer progressTimer;
+    // capacity per second measured on last finish, by directory
+    private final Map<String, Long> driveSpeeds = new ConcurrentHashMap<>();
+    // kept across rounds, by directory
+    private final Map<String, DriveHealth> driveHealths = new ConcurrentHashMap<>();
 
     /**
      * Post construct.
@@ -102,20 +113,15 @@ public class Reader {
     protected void postConstruct() {
         Boolean poolMining = CoreProperties.isPoolMining();
 
-        String numericAccountId;
-        if (poolMining) {
-            numericAccountId = CoreProperties.getNumericAccountId();
-        } else {
-            // calculate numericAccountId
-            byte[] publicKey = Crypto.getPublicKey(CoreProperties.getPassPhrase());
-            byte[] publicKeyHash = Crypto.sha256().digest(publicKey);
-            long accountId = Convert.fullHashToId(publicKeyHash);
-            numericAccountId = Convert.toUnsignedLong(accountId);
+        // plot-files of all accounts are read in one pass
+        numericAccountIds = new ArrayList<>();
+        for (MiningAccount account : CoreProperties.getMiningAccounts()) {
+            if (!StringUtils.isEmpty(account.getNumericAccountId())) {
+                numericAccountIds.add(account.getNumericAccountId());
+            }
         }
-
-        if (!StringUtils.isEmpty(numericAccountId)) {
-            this.numericAccountId = numericAccountId;
-        } else {
+        String numericAccountId = CoreProperties.getMiningAccounts().get(0).getNumericAccountId();
+        if (StringUtils.isEmpty(numericAccountId)) {
             LOG.error("init reader failed!");
         }
 
@@ -123,7 +129,18 @@ public class Reader {
         chunkPartNonces = CoreProperties.getChunkPartNonces();
         scanPathsEveryRound = CoreProperties.isScanPathsEveryRound();
         readerThreads = CoreProperties.getReaderThreads();
-        capacityLookup = new HashMap<>();
+        roundTimeBudget = CoreProperties.getRoundTimeBudget();
+        driveSlowReadTime = CoreProperties.getDriveSlowReadTime();
+
+        // progress is sampled, reader threads only count loaded capacity
+        progressTimer = new Timer(true);
+        progressTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                publishProgress();
+                checkBlockedReads();
+            }
+        }, 0, CoreProperties.getReaderProgressInterval());
 
         if (CoreProperties.isListPlotFiles()) {
             // find winner of lastBlock on new round, if server available
@@ -139,20 +156,26 @@ public class Reader {
     }
 
     /**
-     * starts reader (once per block)
+     * starts reader (once per block, again on fork)
      *
      * @param blockNumber the block number
+     * @param generationSignature the generation signature
      * @param scoopNumber the scoop number
+     * @param finishedChunkPartStartNonces parts already checked for this round, not read again
      */
-    public void read(long previousBlockNumber, long blockNumber, int scoopNumber, long lastBestCommittedDeadline) {
+    public void read(long previousBlockNumber, long blockNumber, byte[] generationSignature, int scoopNumber, long lastBestCommittedDeadline,
+                     Map<Long, Set<BigInteger>> finishedChunkPartStartNonces) {
+        Reader.generationSignature = generationSignature;
         Reader.blockNumber = blockNumber;
 
         // ensure plots are initialized
         plots = plots == null ? getPlots() : plots;
 
-        if (readerPool.getActiveCount() > 0) {
-            long elapsedTime = new Date().getTime() - readerStartTime;
-            context.publishEvent(new ReaderStoppedEvent(previousBlockNumber, capacity, remainingCapacity, elapsedTime, lastBestCommittedDeadline));
+        ReadProgress previousProgress = progress;
+        if (readerPool.getActiveCount() > 0 && previousProgress != null) {
+            long elapsedTime = new Date().getTime() - previousProgress.startTime;
+            context.publishEvent(new ReaderStoppedEvent(previousBlockNumber, previousProgress.capacity, previousProgress.getRemainingCapacity(), elapsedTime,
+                    lastBestCommittedDeadline));
         }
 
         // update reader thread count
@@ -160,25 +183,29 @@ public class Reader {
         readerPool.setCorePoolSize(poolSize);
         readerPool.setMaxPoolSize(poolSize);
 
-        // we use the startnonce of loaded (startnonce+chunk+part) as unique job identifier
-        capacityLookup.clear();
-        capacityLookup.putAll(plots.getChunkPartStartNonces());
-
-        remainingCapacity = plots.getSize();
-        capacity = plots.getSize();
+        ReadProgress readProgress = new ReadProgress(blockNumber, plots.getSize(), plots.getPlotDrives().size());
+        progress = readProgress;
+        long readDeadline = roundTimeBudget > 0 ? readProgress.startTime + roundTimeBudget : 0;
 
-        readerStartTime = new Date().getTime();
+        // with less threads than drives, the fastest drives are read first (not measured yet counts as fastest), slow drives last
+        List<PlotDrive> plotDrives = new ArrayList<>(plots.getPlotDrives());
+        plotDrives.sort(Comparator.comparingLong((PlotDrive plotDrive) -> driveSpeeds.getOrDefault(plotDrive.getDirectory(), Long.MAX_VALUE)).reversed());
+        plotDrives.sort(Comparator.comparing(plotDrive -> getDriveHealth(plotDrive.getDirectory()).getState()));
 
-        for (PlotDrive plotDrive : plots.getPlotDrives()) {
+        int driveIndex = 0;
+        for (PlotDrive plotDrive : plotDrives) {
+            DriveHealth driveHealth = getDriveHealth(plotDrive.getDirectory());
+            driveHealth.startRound();
             ReaderLoadDriveTask readerLoadDriveTask = context.getBean(ReaderLoadDriveTask.class);
-            readerLoadDriveTask.init(scoopNumber, blockNumber, plotDrive);
+            readerLoadDriveTask.init(scoopNumber, blockNumber, generationSignature, plotDrive, driveHealth, readProgress.loadedCapacity[driveIndex++],
+                    readProgress.skippedCapacity, readDeadline, finishedChunkPartStartNonces);
             readerPool.execute(readerLoadDriveTask);
         }
     }
 
     public Plots getPlots() {
         if (scanPathsEveryRound || plots == null) {
-            plots = new Plots(directories, numericAccountId, chunkPartNonces);
+            plots = new Plots(directories, numericAccountIds, chunkPartNonces);
         }
         return plots;
     }
@@ -195,21 +222,29 @@ public class Reader {
         return false;
     }
 
-    @EventListener
-    public void handleMessage(ReaderLoadedPartEvent event) {
-        if (blockNumber == event.getBlockNumber()) {
-            // update progress
-            Long removedCapacity = capacityLookup.remove(event.getChunkPartStartNonce());
-            if (removedCapacity != null) {
-                remainingCapacity -= removedCapacity;
-                long elapsedTime = new Date().getTime() - readerStartTime;
-                context.publishEvent(new ReaderProgressChangedEvent(this, event.getBlockNumber(), capacity, remainingCapacity, elapsedTime));
-            } else {
-                LOG.error("Error: ReaderPartLoadedEvent for unknown chunkPartStartNonce: '" + event.getChunkPartStartNonce() + "'!"
-                        + " Please check for plot-file duplicate or overlapping plots e.g. use https://bchain.info/BURST/tools/overlap");
+    private DriveHealth getDriveHealth(String directory) {
+        return driveHealths.computeIfAbsent(directory, key -> new DriveHealth(key, driveSlowReadTime));
+    }
+
+    // watchdog, a drive blocking in a read is slow before the read returns
+    private void checkBlockedReads() {
+        for (DriveHealth driveHealth : driveHealths.values()) {
+            long readTime = driveHealth.getCurrentReadTime();
+            if (driveHealth.checkRead(readTime)) {
+                context.publishEvent(new ReaderDriveSlowEvent(blockNumber, driveHealth.getDirectory(), readTime, driveHealth.getLatency(0.5),
+                        driveHealth.getLatency(0.99), driveHealth.isQuarantineDue()));
             }
-        } else {
-            LOG.trace("update reader progress skipped ... old block ...");
+        }
+    }
+
+    private void publishProgress() {
+        ReadProgress readProgress = progress;
+        if (readProgress != null && !readProgress.finished && readProgress.blockNumber == blockNumber) {
+            long remainingCapacity = readProgress.getRemainingCapacity();
+            long elapsedTime = new Date().getTime() - readProgress.startTime;
+            // last event is the 100% one
+            readProgress.finished = remainingCapacity <= 0;
+            context.publishEvent(new ReaderProgressChangedEvent(this, readProgress.blockNumber, readProgress.capacity, remainingCapacity, elapsedTime));
         }
     }
 
@@ -226,6 +261,13 @@ public class Reader {
         }
     }
 
+    @EventListener
+    public void handleMessage(ReaderDriveFinishEvent event) {
+        if (event.getSize() > 0 && event.getTime() > 0) {
+            driveSpeeds.put(event.getDirectory(), event.getSize() * 1000 / event.getTime());
+        }
+    }
+
     @EventListener
     public void handleMessage(NetworkBlocksEvent event) {
         if (event.getBlocks() != null && !event.getBlocks().getBlocks().isEmpty()) {
@@ -270,4 +312,36 @@ public class Reader {
             }
         }
     }
+
+    /**
+     * Progress of one round, every drive counts on its own adder, so reader threads never contend.
+     */
+    private static final class ReadProgress {
+        private final long blockNumber;
+        private final long capacity;
+        private final long startTime;
+        private final LongAdder[] loadedCapacity;
+        // not read within round time budget
+        private final LongAdder skippedCapacity = new LongAdder();
+        // only accessed by progress timer
+        private boolean finished;
+
+        private ReadProgress(long blockNumber, long capacity, int numberOfDrives) {
+            this.blockNumber = blockNumber;
+            this.capacity = capacity;
+            startTime = new Date().getTime();
+            loadedCapacity = new LongAdder[numberOfDrives];
+            for (int i = 0; i < numberOfDrives; i++) {
+                loadedCapacity[i] = new LongAdder();
+            }
+        }
+
+        private long getRemainingCapacity() {
+            long loaded = 0;
+            for (LongAdder driveLoadedCapacity : loadedCapacity) {
+                loaded += driveLoadedCapacity.sum();
+            }
+            return capacity - loaded - skippedCapacity.sum();
+        }
+    }
 }
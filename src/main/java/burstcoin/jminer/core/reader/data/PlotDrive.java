@@ -28,9 +28,11 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -39,7 +41,7 @@ import java.util.Map;
 public class PlotDrive {
     private static final Logger LOG = LoggerFactory.getLogger(PlotDrive.class);
 
-    private Collection<PlotFile> plotFiles;
+    private List<PlotFile> plotFiles;
     private String directory;
 
     /**
@@ -52,7 +54,7 @@ public class PlotDrive {
     public PlotDrive(String directory, Collection<Path> plotFilePaths, Long chunkPartNonces) {
         this.directory = directory;
 
-        plotFiles = new HashSet<>();
+        plotFiles = new ArrayList<>();
         for (Path path : plotFilePaths) {
             PlotFile plotFile = new PlotFile(path, chunkPartNonces);
             plotFiles.add(plotFile);
@@ -61,10 +63,12 @@ public class PlotDrive {
                 LOG.error("could not calculate valid numberOfParts: " + plotFile.getFilePath());
             }
         }
+        // one seek per chunk, the drive speed is the same for all files, so most scoop bytes per seek read fastest
+        plotFiles.sort(Comparator.comparingLong(PlotFile::getStaggeramt).reversed());
     }
 
     /**
-     * Gets plot files.
+     * Gets plot files, the ones with most capacity per second (less seeks, optimized first) first.
      *
      * @return the plot files
      */
@@ -82,13 +86,17 @@ public class PlotDrive {
     }
 
     /**
-     * Collect chunk part start nonces.
+     * Collect chunk part start nonces of an account, nonces of different accounts may overlap.
      *
+     * @param accountId the numeric account id
      * @return the map
      */
-    public Map<BigInteger, Long> collectChunkPartStartNonces() {
+    public Map<BigInteger, Long> collectChunkPartStartNonces(long accountId) {
         Map<BigInteger, Long> chunkPartStartNonces = new HashMap<>();
         for (PlotFile plotFile : plotFiles) {
+            if (plotFile.getAddress() != accountId) {
+                continue;
+            }
             int expectedSize = chunkPartStartNonces.size() + plotFile.getChunkPartStartNonces().size();
             chunkPartStartNonces.putAll(plotFile.getChunkPartStartNonces());
             if (expectedSize != chunkPartStartNonces.size()) {
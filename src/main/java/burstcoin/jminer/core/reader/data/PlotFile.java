@@ -38,6 +38,9 @@ import java.util.Map;
 public class PlotFile {
     private static final Logger LOG = LoggerFactory.getLogger(PlotFile.class);
 
+    // suffix of plot-files not finished yet (plotter), ignored by miner
+    public static final String WORK_SUFFIX = ".plotting";
+
     // key -> size
     private Map<BigInteger, Long> chunkPartStartNonces;
 
@@ -24,6 +24,8 @@ package burstcoin.jminer.core.reader.data;
 
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.MiningAccount;
+import nxt.util.Convert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,30 +42,45 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class Plots {
     private static final Logger LOG = LoggerFactory.getLogger(Plots.class);
 
     private Collection<PlotDrive> plotDrives;
-    private Map<BigInteger, Long> chunkPartStartNonces;
+    // by numeric account id
+    private Map<Long, Map<BigInteger, Long>> chunkPartStartNonces;
 
     public Plots() {
-        this(CoreProperties.getPlotPaths(), CoreProperties.getNumericAccountId(), CoreProperties.getChunkPartNonces());
+        this(CoreProperties.getPlotPaths(), CoreProperties.getMiningAccounts().stream().map(MiningAccount::getNumericAccountId).collect(Collectors.toList()),
+                CoreProperties.getChunkPartNonces());
     }
 
-    public Plots(List<String> plotPaths, String numericAccountId, long chunkPartNonces) {
+    /**
+     * Instantiates new Plots, plot-files of all accounts on a drive belong to one plot drive, so every drive is read once.
+     *
+     * @param plotPaths the plot paths
+     * @param numericAccountIds the numeric account ids to mine
+     * @param chunkPartNonces the chunk part nonces
+     */
+    public Plots(List<String> plotPaths, Collection<String> numericAccountIds, long chunkPartNonces) {
         plotDrives = new HashSet<>();
         chunkPartStartNonces = new HashMap<>();
-        Map<String, Collection<Path>> plotFilesLookup = collectPlotFiles(plotPaths, numericAccountId);
+        Map<String, Collection<Path>> plotFilesLookup = collectPlotFiles(plotPaths, numericAccountIds);
         for (Map.Entry<String, Collection<Path>> entry : plotFilesLookup.entrySet()) {
             PlotDrive plotDrive = new PlotDrive(entry.getKey(), entry.getValue(), chunkPartNonces);
             plotDrives.add(plotDrive);
 
-            int expectedSize = chunkPartStartNonces.size() + plotDrive.collectChunkPartStartNonces().size();
-            chunkPartStartNonces.putAll(plotDrive.collectChunkPartStartNonces());
-            if (expectedSize != chunkPartStartNonces.size()) {
-                LOG.error("possible duplicate/overlapping polt-file on drive '" + plotDrive.getDirectory()
-                        + "' please use 'https://bchain.info/BURST/tools/overlap' to check your plots.");
+            for (String numericAccountId : numericAccountIds) {
+                long accountId = Convert.parseUnsignedLong(numericAccountId);
+                Map<BigInteger, Long> accountChunkPartStartNonces = chunkPartStartNonces.computeIfAbsent(accountId, id -> new HashMap<>());
+                Map<BigInteger, Long> driveChunkPartStartNonces = plotDrive.collectChunkPartStartNonces(accountId);
+                int expectedSize = accountChunkPartStartNonces.size() + driveChunkPartStartNonces.size();
+                accountChunkPartStartNonces.putAll(driveChunkPartStartNonces);
+                if (expectedSize != accountChunkPartStartNonces.size()) {
+                    LOG.error("possible duplicate/overlapping polt-file on drive '" + plotDrive.getDirectory()
+                            + "' please use 'https://bchain.info/BURST/tools/overlap' to check your plots.");
+                }
             }
         }
     }
@@ -77,14 +94,17 @@ public class Plots {
         return plotDrives;
     }
 
-    private static Map<String, Collection<Path>> collectPlotFiles(List<String> plotDirectories, String numericAccountId) {
+    private static Map<String, Collection<Path>> collectPlotFiles(List<String> plotDirectories, Collection<String> numericAccountIds) {
         Map<String, Collection<Path>> plotFilesLookup = new HashMap<>();
         for (String plotDirectory : plotDirectories) {
             Path folderPath = Paths.get(plotDirectory);
             try (DirectoryStream<Path> plotFilesStream = Files.newDirectoryStream(folderPath)) {
                 List<Path> plotFilePaths = new ArrayList<>();
                 for (Path plotFilePath : plotFilesStream) {
-                    if (plotFilePath.toString().contains(numericAccountId)) {
+                    // plot-file names start with the numeric account id
+                    String filename = plotFilePath.getFileName().toString();
+                    int separator = filename.indexOf('_');
+                    if (separator > 0 && numericAccountIds.contains(filename.substring(0, separator)) && !filename.endsWith(PlotFile.WORK_SUFFIX)) {
                         plotFilePaths.add(plotFilePath);
                     }
                 }
@@ -109,6 +129,24 @@ public class Plots {
         return size;
     }
 
+    /**
+     * Gets size of an account.
+     *
+     * @param accountId the numeric account id
+     * @return number of bytes of the plotFiles of the account
+     */
+    public long getSize(long accountId) {
+        long size = 0;
+        for (PlotDrive plotDrive : plotDrives) {
+            for (PlotFile plotFile : plotDrive.getPlotFiles()) {
+                if (plotFile.getAddress() == accountId) {
+                    size += plotFile.getSize();
+                }
+            }
+        }
+        return size;
+    }
+
     /**
      * Print plot files.
      */
@@ -138,11 +176,11 @@ public class Plots {
     }
 
     /**
-     * Gets chunk part start nonces.
+     * Gets chunk part start nonces by numeric account id.
      *
      * @return the chunk part start nonces
      */
-    public Map<BigInteger, Long> getChunkPartStartNonces() {
+    public Map<Long, Map<BigInteger, Long>> getChunkPartStartNonces() {
         return chunkPartStartNonces;
     }
 
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * fired if a demoted or quarantined drive was read completely without slow read
+ */
+public class ReaderDriveRecoveredEvent extends ApplicationEvent {
+    private long blockNumber;
+    private String directory;
+    private long latencyP50;
+    private long latencyP99;
+
+    /**
+     * Instantiates a new Reader drive recovered event.
+     *
+     * @param blockNumber the block number
+     * @param directory   the directory
+     * @param latencyP50  the median part read latency in microseconds
+     * @param latencyP99  the 99th percentile part read latency in microseconds
+     */
+    public ReaderDriveRecoveredEvent(long blockNumber, String directory, long latencyP50, long latencyP99) {
+        super(blockNumber);
+
+        this.blockNumber = blockNumber;
+        this.directory = directory;
+        this.latencyP50 = latencyP50;
+        this.latencyP99 = latencyP99;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public long getLatencyP50() {
+        return latencyP50;
+    }
+
+    public long getLatencyP99() {
+        return latencyP99;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.event;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * fired by reader thread of a drive, if round time budget was exceeded before all parts of the drive were read
+ */
+public class ReaderPartsSkippedEvent {
+    private long blockNumber;
+    private byte[] generationSignature;
+    private String directory;
+    private Map<Long, List<BigInteger>> chunkPartStartNonces;
+    private long capacity;
+
+    /**
+     * Instantiates a new Reader parts skipped event.
+     *
+     * @param blockNumber          the block number
+     * @param generationSignature  the generation signature of the round
+     * @param directory            the directory of the drive
+     * @param chunkPartStartNonces the skipped chunk part start nonces, by numeric account id
+     * @param capacity             the skipped capacity
+     */
+    public ReaderPartsSkippedEvent(long blockNumber, byte[] generationSignature, String directory, Map<Long, List<BigInteger>> chunkPartStartNonces,
+                                   long capacity) {
+        this.blockNumber = blockNumber;
+        this.generationSignature = generationSignature;
+        this.directory = directory;
+        this.chunkPartStartNonces = chunkPartStartNonces;
+        this.capacity = capacity;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public byte[] getGenerationSignature() {
+        return generationSignature;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public Map<Long, List<BigInteger>> getChunkPartStartNonces() {
+        return chunkPartStartNonces;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+}
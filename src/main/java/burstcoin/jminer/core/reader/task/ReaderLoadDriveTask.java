@@ -24,12 +24,17 @@ package burstcoin.jminer.core.reader.task;
 
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.Checker;
 import burstcoin.jminer.core.reader.Reader;
 import burstcoin.jminer.core.reader.data.PlotDrive;
 import burstcoin.jminer.core.reader.data.PlotFile;
 import burstcoin.jminer.core.reader.event.ReaderDriveFinishEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveInterruptedEvent;
-import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveRecoveredEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveSlowEvent;
+import burstcoin.jminer.core.reader.event.ReaderPartsSkippedEvent;
+import burstcoin.jminer.core.reader.util.DriveHealth;
+import burstcoin.jminer.core.reader.util.ScoopBufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,9 +51,15 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -62,67 +73,174 @@ public class ReaderLoadDriveTask implements Runnable {
     @Autowired
     private ApplicationEventPublisher publisher;
 
+    @Autowired
+    private ScoopBufferPool scoopBufferPool;
+
+    @Autowired
+    private Checker checker;
+
     private PlotDrive plotDrive;
+    private DriveHealth driveHealth;
     private int scoopNumber;
     private long blockNumber;
+    private byte[] generationSignature;
     private boolean showDriveInfo;
+    private LongAdder loadedCapacity;
+    private LongAdder skippedCapacity;
+    // end of round time budget, 0 if none
+    private long readDeadline;
 
-    public void init(int scoopNumber, long blockNumber, PlotDrive plotDrive) {
+    // parts not read within round time budget, by numeric account id
+    private Map<Long, List<BigInteger>> skippedChunkPartStartNonces;
+    private long skippedDriveCapacity;
+    // parts checked before restart of miner, not read this round
+    private long resumedDriveCapacity;
+    private Map<Long, Set<BigInteger>> finishedChunkPartStartNonces;
+
+    public void init(int scoopNumber, long blockNumber, byte[] generationSignature, PlotDrive plotDrive, DriveHealth driveHealth,
+                     LongAdder loadedCapacity, LongAdder skippedCapacity, long readDeadline, Map<Long, Set<BigInteger>> finishedChunkPartStartNonces) {
         this.scoopNumber = scoopNumber;
         this.blockNumber = blockNumber;
+        this.generationSignature = generationSignature;
         this.plotDrive = plotDrive;
+        this.driveHealth = driveHealth;
+        this.loadedCapacity = loadedCapacity;
+        this.skippedCapacity = skippedCapacity;
+        this.readDeadline = readDeadline;
+        this.finishedChunkPartStartNonces = finishedChunkPartStartNonces;
 
         showDriveInfo = CoreProperties.isShowDriveInfo();
     }
 
     @Override
     public void run() {
-        long startTime = showDriveInfo ? new Date().getTime() : 0;
-        Iterator<PlotFile> iterator = plotDrive.getPlotFiles().iterator();
-        boolean interrupted = false;
-        while (iterator.hasNext() && !interrupted) {
-            PlotFile plotPathInfo = iterator.next();
+        long startTime = new Date().getTime();
+        skippedChunkPartStartNonces = new HashMap<>();
+        skippedDriveCapacity = 0;
+        resumedDriveCapacity = 0;
+        long maxPartSize = 0;
+        for (PlotFile plotPathInfo : plotDrive.getPlotFiles()) {
             if (plotPathInfo.getStaggeramt() % plotPathInfo.getNumberOfParts() > 0) {
                 LOG.warn("staggeramt " + plotPathInfo.getStaggeramt() + " can not be devided by " + plotPathInfo.getNumberOfParts());
                 // fallback ... could lead to problems on optimized plot-files
                 plotPathInfo.setNumberOfParts(1);
             }
-            interrupted = load(plotPathInfo);
+            maxPartSize = Math.max(maxPartSize, plotPathInfo.getStaggeramt() / plotPathInfo.getNumberOfParts());
+        }
+
+        // one direct buffer for all parts of the drive, checker reads it in place
+        ByteBuffer partBuffer = scoopBufferPool.acquire(maxPartSize);
+        Iterator<PlotFile> iterator = plotDrive.getPlotFiles().iterator();
+        boolean interrupted = false;
+        try {
+            while (iterator.hasNext() && !interrupted) {
+                PlotFile plotFile = iterator.next();
+                if (isSkipRest()) {
+                    skip(plotFile, 0);
+                } else {
+                    interrupted = load(plotFile, partBuffer);
+                }
+            }
+        } finally {
+            scoopBufferPool.release(partBuffer);
+        }
+
+        if (driveHealth.finishRound(!interrupted) != DriveHealth.State.HEALTHY && driveHealth.getState() == DriveHealth.State.HEALTHY) {
+            publisher.publishEvent(new ReaderDriveRecoveredEvent(blockNumber, plotDrive.getDirectory(), driveHealth.getLatency(0.5),
+                    driveHealth.getLatency(0.99)));
         }
 
-        if (showDriveInfo) {
-            if (interrupted) {
+        if (interrupted) {
+            if (showDriveInfo) {
                 publisher.publishEvent(new ReaderDriveInterruptedEvent(blockNumber, plotDrive.getDirectory()));
-            } else {
-                publisher.publishEvent(new ReaderDriveFinishEvent(plotDrive.getDirectory(), plotDrive.getSize(), new Date().getTime() - startTime, blockNumber));
             }
+        } else {
+            if (skippedDriveCapacity > 0) {
+                skippedCapacity.add(skippedDriveCapacity);
+                publisher.publishEvent(new ReaderPartsSkippedEvent(blockNumber, generationSignature, plotDrive.getDirectory(), skippedChunkPartStartNonces,
+                        skippedDriveCapacity));
+            }
+            // always published, reader measures drive speed, by capacity actually read
+            publisher.publishEvent(new ReaderDriveFinishEvent(plotDrive.getDirectory(), plotDrive.getSize() - skippedDriveCapacity - resumedDriveCapacity,
+                    new Date().getTime() - startTime, blockNumber));
+        }
+    }
+
+    // round time budget exceeded, drive slow or quarantined
+    private boolean isSkipRest() {
+        return readDeadline > 0 && System.currentTimeMillis() >= readDeadline || driveHealth.isSlow() || driveHealth.isSkipRound();
+    }
+
+    // remember parts of plotFile from firstPart on, as not read
+    private void skip(PlotFile plotFile, long firstPart) {
+        long partSize = plotFile.getStaggeramt() / plotFile.getNumberOfParts();
+        List<BigInteger> chunkPartStartNonces = skippedChunkPartStartNonces.computeIfAbsent(plotFile.getAddress(), accountId -> new ArrayList<>());
+        long numberOfParts = plotFile.getNumberOfChunks() * plotFile.getNumberOfParts();
+        for (long part = firstPart; part < numberOfParts; part++) {
+            long chunkNumber = part / plotFile.getNumberOfParts();
+            long partNumber = part % plotFile.getNumberOfParts();
+            chunkPartStartNonces.add(plotFile.getStartnonce().add(BigInteger.valueOf(chunkNumber * plotFile.getStaggeramt() + partNumber * partSize)));
+            skippedDriveCapacity += partSize * MiningPlot.PLOT_SIZE;
         }
     }
 
-    private boolean load(PlotFile plotFile) {
+    private boolean isFinished(long accountId, BigInteger chunkPartStartNonce) {
+        Set<BigInteger> accountChunkPartStartNonces = finishedChunkPartStartNonces.get(accountId);
+        return accountChunkPartStartNonces != null && accountChunkPartStartNonces.contains(chunkPartStartNonce);
+    }
+
+    private boolean load(PlotFile plotFile, ByteBuffer partBuffer) {
         try (SeekableByteChannel sbc = Files.newByteChannel(plotFile.getFilePath(), EnumSet.of(StandardOpenOption.READ))) {
             long currentScoopPosition = scoopNumber * plotFile.getStaggeramt() * MiningPlot.SCOOP_SIZE;
 
             long partSize = plotFile.getStaggeramt() / plotFile.getNumberOfParts();
-            ByteBuffer partBuffer = ByteBuffer.allocate((int) (partSize * MiningPlot.SCOOP_SIZE));
+            int partBytes = (int) (partSize * MiningPlot.SCOOP_SIZE);
+            long partCapacity = partSize * MiningPlot.PLOT_SIZE;
             // optimized plotFiles only have one chunk!
             for (int chunkNumber = 0; chunkNumber < plotFile.getNumberOfChunks(); chunkNumber++) {
                 long currentChunkPosition = chunkNumber * plotFile.getStaggeramt() * MiningPlot.PLOT_SIZE;
                 sbc.position(currentScoopPosition + currentChunkPosition);
                 for (int partNumber = 0; partNumber < plotFile.getNumberOfParts(); partNumber++) {
-                    sbc.read(partBuffer);
+                    if (isSkipRest()) {
+                        // most capacity per second was read first or drive is slow, skip the rest
+                        skip(plotFile, (long) chunkNumber * plotFile.getNumberOfParts() + partNumber);
+                        sbc.close();
+                        return false;
+                    }
+                    BigInteger chunkPartStartNonce = plotFile.getStartnonce().add(BigInteger.valueOf(chunkNumber * plotFile.getStaggeramt() + partNumber * partSize));
+                    if (isFinished(plotFile.getAddress(), chunkPartStartNonce)) {
+                        // already checked before restart of miner
+                        loadedCapacity.add(partCapacity);
+                        resumedDriveCapacity += partCapacity;
+                        sbc.position(sbc.position() + partBytes);
+                        continue;
+                    }
+                    partBuffer.clear();
+                    partBuffer.limit(partBytes);
+                    long latency;
+                    driveHealth.readStarted();
+                    try {
+                        while (partBuffer.hasRemaining() && sbc.read(partBuffer) != -1) {
+                            // read until part is complete
+                        }
+                    } finally {
+                        latency = driveHealth.readFinished();
+                    }
+                    if (driveHealth.checkRead(latency / 1000)) {
+                        publisher.publishEvent(new ReaderDriveSlowEvent(blockNumber, plotDrive.getDirectory(), latency / 1000, driveHealth.getLatency(0.5),
+                                driveHealth.getLatency(0.99), driveHealth.isQuarantineDue()));
+                    }
+                    partBuffer.flip();
 
-                    if (Reader.blockNumber != blockNumber) {
+                    if (Reader.blockNumber != blockNumber || Reader.generationSignature != generationSignature) {
                         LOG.trace("loadDriveThread stopped!");
-                        partBuffer.clear();
                         sbc.close();
                         return true;
                     } else {
-                        BigInteger chunkPartStartNonce = plotFile.getStartnonce().add(BigInteger.valueOf(chunkNumber * plotFile.getStaggeramt() + partNumber * partSize));
-                        final byte[] scoops = partBuffer.array();
-                        publisher.publishEvent(new ReaderLoadedPartEvent(blockNumber, scoops, chunkPartStartNonce));
+                        // direct calls, no spring event per part
+                        loadedCapacity.add(partCapacity);
+                        checker.check(blockNumber, generationSignature, partBuffer, plotFile.getAddress(), chunkPartStartNonce);
                     }
-                    partBuffer.clear();
                 }
             }
             sbc.close();
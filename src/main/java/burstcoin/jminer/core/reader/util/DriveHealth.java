@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import java.util.Arrays;
+
+/**
+ * Health of one drive (plot path) across rounds, tracks latency of part reads.
+ * <p>
+ * A drive with a part read taking longer than 'driveSlowReadTime' is slow: the rest of the drive is skipped that round and
+ * the drive is read last on next rounds. Slow for some rounds in a row, it is quarantined and only read every few rounds
+ * to check for recovery. A drive read completely without slow read is healthy again.
+ */
+public class DriveHealth {
+    // slow rounds in a row, until drive is quarantined
+    public static final int QUARANTINE_AFTER_ROUNDS = 3;
+    // quarantined drive is read every n-th round
+    public static final int RECOVERY_CHECK_INTERVAL = 10;
+
+    private static final int LATENCY_SAMPLES = 1024;
+
+    /**
+     * State of drive, drives are read in this order.
+     */
+    public enum State {
+        HEALTHY, DEMOTED, QUARANTINED
+    }
+
+    private final String directory;
+    private final long slowReadTime;
+
+    // last part read latencies in microseconds, ring buffer
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyIndex;
+    private int latencyCount;
+
+    // nano time current read started, 0 if not reading, watched by reader progress timer
+    private volatile long readStart;
+    private volatile boolean slow;
+    private volatile boolean skipRound;
+
+    private State state = State.HEALTHY;
+    private int slowRounds;
+    private int quarantinedRounds;
+
+    /**
+     * Instantiates a new Drive health.
+     *
+     * @param directory    the directory
+     * @param slowReadTime max. time in ms a part read may take, 0 to never demote drive
+     */
+    public DriveHealth(String directory, long slowReadTime) {
+        this.directory = directory;
+        this.slowReadTime = slowReadTime;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Start round, a quarantined drive skips the round, if no recovery check is due.
+     */
+    public synchronized void startRound() {
+        slow = false;
+        skipRound = state == State.QUARANTINED && ++quarantinedRounds % RECOVERY_CHECK_INTERVAL != 0;
+    }
+
+    /**
+     * Is skip round, drive is quarantined.
+     *
+     * @return true if no part of the drive should be read this round
+     */
+    public boolean isSkipRound() {
+        return skipRound;
+    }
+
+    /**
+     * Is slow, a read of this round took too long.
+     *
+     * @return the boolean
+     */
+    public boolean isSlow() {
+        return slow;
+    }
+
+    public void readStarted() {
+        readStart = System.nanoTime();
+    }
+
+    /**
+     * Read finished, records its latency.
+     *
+     * @return the latency in microseconds
+     */
+    public long readFinished() {
+        long latency = (System.nanoTime() - readStart) / 1000;
+        readStart = 0;
+        synchronized (this) {
+            latencies[latencyIndex] = latency;
+            latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+        return latency;
+    }
+
+    /**
+     * Check a read, marks drive slow if the read took too long.
+     *
+     * @param readTime the read time in ms
+     * @return true if the read made the drive slow, false if not slow or already slow before
+     */
+    public boolean checkRead(long readTime) {
+        return readTime >= slowReadTime && markSlow();
+    }
+
+    /**
+     * Gets time in ms the current read takes so far.
+     *
+     * @return the read time, 0 if not reading
+     */
+    public long getCurrentReadTime() {
+        long start = readStart;
+        return start != 0 ? (System.nanoTime() - start) / 1000000 : 0;
+    }
+
+    /**
+     * Finish round of the drive.
+     *
+     * @param complete true if all parts were read, false if stopped by new round
+     * @return the state before, to detect recovery
+     */
+    public synchronized State finishRound(boolean complete) {
+        State previous = state;
+        if (slow) {
+            slowRounds++;
+            if (slowRounds >= QUARANTINE_AFTER_ROUNDS) {
+                if (state != State.QUARANTINED) {
+                    quarantinedRounds = 0;
+                }
+                state = State.QUARANTINED;
+            } else {
+                state = State.DEMOTED;
+            }
+        } else if (complete && !skipRound) {
+            slowRounds = 0;
+            state = State.HEALTHY;
+        }
+        return previous;
+    }
+
+    /**
+     * Will be quarantined, if current round is finished.
+     *
+     * @return the boolean
+     */
+    public synchronized boolean isQuarantineDue() {
+        return slowRounds + 1 >= QUARANTINE_AFTER_ROUNDS;
+    }
+
+    /**
+     * Gets latency percentile of the last part reads.
+     *
+     * @param percentile the percentile, e.g. 0.99
+     * @return the latency in microseconds, 0 if nothing read yet
+     */
+    public synchronized long getLatency(double percentile) {
+        if (latencyCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * latencyCount) - 1;
+        return sorted[Math.max(0, Math.min(latencyCount - 1, index))];
+    }
+
+    private boolean markSlow() {
+        if (slowReadTime <= 0 || slow) {
+            return false;
+        }
+        synchronized (this) {
+            if (slow) {
+                return false;
+            }
+            slow = true;
+            return true;
+        }
+    }
+}
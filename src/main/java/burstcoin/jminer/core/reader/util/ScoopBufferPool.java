@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import pocminer.generate.MiningPlot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Pool of direct buffers the reader loads scoops into.
+ * <p>
+ * Direct buffers can be handed to openCL without copying them into the java heap first, pooling them ensures the
+ * native memory is allocated once and not on every round.
+ */
+@Component
+@Scope("singleton")
+public class ScoopBufferPool {
+    // capacity is rounded to full blocks of nonces, this way openCL kernels working on whole work groups
+    // never read beyond the end of the buffer
+    private static final int NONCE_ALIGNMENT = 1024;
+
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<ByteBuffer>> dropListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Add listener called with every buffer the pool drops, to release resources bound to it.
+     *
+     * @param dropListener the drop listener
+     */
+    public void addDropListener(Consumer<ByteBuffer> dropListener) {
+        dropListeners.add(dropListener);
+    }
+
+    /**
+     * Acquire a buffer for the given number of nonces.
+     *
+     * @param nonces the number of nonces
+     * @return cleared buffer, limit is set to the scoops of the requested nonces
+     */
+    public ByteBuffer acquire(long nonces) {
+        long requiredCapacity = ((nonces + NONCE_ALIGNMENT - 1) / NONCE_ALIGNMENT) * NONCE_ALIGNMENT * MiningPlot.SCOOP_SIZE;
+        ByteBuffer buffer = buffers.poll();
+        // buffers that are too small are dropped, the pool converges to the largest part size
+        if (buffer == null || buffer.capacity() < requiredCapacity) {
+            if (buffer != null) {
+                for (Consumer<ByteBuffer> dropListener : dropListeners) {
+                    dropListener.accept(buffer);
+                }
+            }
+            buffer = ByteBuffer.allocateDirect((int) requiredCapacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear();
+        buffer.limit((int) (nonces * MiningPlot.SCOOP_SIZE));
+        return buffer;
+    }
+
+    /**
+     * Release buffer back to pool.
+     *
+     * @param buffer the buffer
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null) {
+            buffers.offer(buffer);
+        }
+    }
+}
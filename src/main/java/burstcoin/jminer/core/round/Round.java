@@ -23,14 +23,23 @@
 package burstcoin.jminer.core.round;
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.MiningAccount;
 import burstcoin.jminer.core.checker.Checker;
+import burstcoin.jminer.core.checker.CheckerResultListener;
 import burstcoin.jminer.core.checker.event.CheckerResultEvent;
+import burstcoin.jminer.core.checker.util.DeadlineCalculator;
+import burstcoin.jminer.core.farm.Agent;
+import burstcoin.jminer.core.farm.Coordinator;
+import burstcoin.jminer.core.farm.event.AgentDisconnectedEvent;
+import burstcoin.jminer.core.farm.event.AgentResultEvent;
+import burstcoin.jminer.core.farm.event.AgentRoundFinishedEvent;
 import burstcoin.jminer.core.network.Network;
 import burstcoin.jminer.core.network.event.NetworkResultConfirmedEvent;
 import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
 import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
 import burstcoin.jminer.core.reader.Reader;
 import burstcoin.jminer.core.reader.data.Plots;
+import burstcoin.jminer.core.reader.event.ReaderPartsSkippedEvent;
 import burstcoin.jminer.core.reader.event.ReaderStoppedEvent;
 import burstcoin.jminer.core.round.event.RoundFinishedEvent;
 import burstcoin.jminer.core.round.event.RoundSingleResultEvent;
@@ -38,7 +47,9 @@ import burstcoin.jminer.core.round.event.RoundSingleResultSkippedEvent;
 import burstcoin.jminer.core.round.event.RoundStartedEvent;
 import burstcoin.jminer.core.round.event.RoundStoppedEvent;
 import burstcoin.jminer.core.round.task.RoundFireEventTask;
-import fr.cryptohash.Shabal256;
+import burstcoin.jminer.core.round.util.MpscRingBuffer;
+import burstcoin.jminer.core.round.util.RoundJournal;
+import nxt.util.Convert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,55 +59,102 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import pocminer.generate.MiningPlot;
+import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.math.BigInteger;
-import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The type Round.
+ * <p>
+ * Events are handled by a single round thread, fed by a lock-free queue. Readers, checkers and network threads only
+ * enqueue, so round state needs no synchronization and the producers never wait for each other.
  */
 @Component
 @Scope("singleton")
-public class Round {
+public class Round
+        implements CheckerResultListener {
     private static final Logger LOG = LoggerFactory.getLogger(Round.class);
 
+    private static final int EVENT_QUEUE_CAPACITY = 8192;
+    private static final int MAX_CANDIDATES = 32;
+
     private final ApplicationContext context;
     private final ThreadPoolTaskExecutor roundPool;
     private final Reader reader;
     private final Checker checker;
     private final Network network;
+    private final Coordinator coordinator;
+    private final Agent agent;
 
     private boolean poolMining;
+    private boolean agentMode;
     private long targetDeadline;
 
     private Timer timer;
+    // round is identified by block number and generation signature, a fork restarts it at same block number
     private long blockNumber;
-    private long finishedBlockNumber;
+    private byte[] generationSignature;
+    private boolean finished;
     private long baseTarget;
+    // restarts of current block and since start
+    private int restart;
+    private long totalRestarts;
     private Date roundStartDate;
 
     private BigInteger lowest;
-    private long bestCommittedDeadline;
+    private List<MiningAccount> accounts;
+    // by numeric account id
+    private Map<Long, AccountRound> accountRounds;
+    // results waiting for network, with the account they belong to
+    private Map<BigInteger, AccountRound> resultsInFlight;
+
+    // by numeric account id, nonces of different accounts may overlap
+    private Map<Long, Set<BigInteger>> runningChunkPartStartNonces;
+    // capacity of own drives not read within round time budget
+    private long skippedCapacity;
+    private Plots plots;
 
-    // cache for next lowest
-    private CheckerResultEvent queuedEvent;
-    private BigInteger lowestCommitted;
+    // farm, agents mining this round and best deadline by agent
+    private Set<String> runningAgents;
+    private Map<String, Long> agentBestDeadlines;
+    private long farmCapacity;
 
-    private Set<BigInteger> runningChunkPartStartNonces;
-    private Plots plots;
+    private RoundJournal journal;
+
+    private final MpscRingBuffer<Object> eventQueue = new MpscRingBuffer<>(EVENT_QUEUE_CAPACITY);
+    private Thread roundThread;
+
+    // time events waited in queue, per round
+    private final long[] queueLatency = new long[1];
+    private long queueLatencySum;
+    private long queueLatencyCount;
+    private long queueLatencyMax;
 
     @Autowired
-    public Round(Reader reader, Checker checker, Network network, ThreadPoolTaskExecutor roundPool, ApplicationContext context) {
+    public Round(Reader reader, Checker checker, Network network, Coordinator coordinator, Agent agent, ThreadPoolTaskExecutor roundPool,
+                 ApplicationContext context) {
         this.reader = reader;
         this.checker = checker;
         this.network = network;
+        this.coordinator = coordinator;
+        this.agent = agent;
         this.roundPool = roundPool;
         this.context = context;
     }
@@ -104,171 +162,445 @@ public class Round {
     @PostConstruct
     protected void postConstruct() {
         this.poolMining = CoreProperties.isPoolMining();
+        this.agentMode = CoreProperties.isAgent();
+        accounts = new ArrayList<>();
+        for (MiningAccount account : CoreProperties.getMiningAccounts()) {
+            if (!StringUtils.isEmpty(account.getNumericAccountId())) {
+                accounts.add(account);
+            }
+        }
         timer = new Timer();
+
+        // agents do not commit, coordinator keeps the journal
+        journal = new RoundJournal(agentMode ? null : CoreProperties.getRoundJournal());
+        journal.load();
+
+        // registered here, checker is a dependency of round
+        checker.setResultListener(this);
+
+        roundThread = new Thread(this::processEvents, "round");
+        roundThread.setDaemon(true);
+        roundThread.start();
+    }
+
+    @PreDestroy
+    protected void preDestroy() {
+        roundThread.interrupt();
+        journal.close();
+    }
+
+    @EventListener
+    public void handleMessage(NetworkStateChangeEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @Override
+    public void onCheckerResult(CheckerResultEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(NetworkResultConfirmedEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(NetworkResultErrorEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(ReaderStoppedEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(ReaderPartsSkippedEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(AgentResultEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(AgentRoundFinishedEvent event) {
+        eventQueue.offer(event);
+    }
+
+    @EventListener
+    public void handleMessage(AgentDisconnectedEvent event) {
+        eventQueue.offer(event);
+    }
+
+    private void processEvents() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Object event = eventQueue.take(queueLatency);
+                queueLatencySum += queueLatency[0];
+                queueLatencyCount++;
+                queueLatencyMax = Math.max(queueLatencyMax, queueLatency[0]);
+
+                if (event instanceof CheckerResultEvent) {
+                    process((CheckerResultEvent) event);
+                } else if (event instanceof NetworkStateChangeEvent) {
+                    process((NetworkStateChangeEvent) event);
+                } else if (event instanceof NetworkResultConfirmedEvent) {
+                    process((NetworkResultConfirmedEvent) event);
+                } else if (event instanceof NetworkResultErrorEvent) {
+                    process((NetworkResultErrorEvent) event);
+                } else if (event instanceof ReaderStoppedEvent) {
+                    process((ReaderStoppedEvent) event);
+                } else if (event instanceof ReaderPartsSkippedEvent) {
+                    process((ReaderPartsSkippedEvent) event);
+                } else if (event instanceof AgentResultEvent) {
+                    process((AgentResultEvent) event);
+                } else if (event instanceof AgentRoundFinishedEvent) {
+                    process((AgentRoundFinishedEvent) event);
+                } else if (event instanceof AgentDisconnectedEvent) {
+                    process((AgentDisconnectedEvent) event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // keep round thread alive
+                LOG.error("Failed to handle round event.", e);
+            }
+        }
     }
 
     private void initNewRound(Plots plots) {
-        runningChunkPartStartNonces = new HashSet<>(plots.getChunkPartStartNonces().keySet());
+        runningChunkPartStartNonces = new HashMap<>();
+        for (Map.Entry<Long, Map<BigInteger, Long>> entry : plots.getChunkPartStartNonces().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                runningChunkPartStartNonces.put(entry.getKey(), new HashSet<>(entry.getValue().keySet()));
+            }
+        }
+        skippedCapacity = 0;
         roundStartDate = new Date();
         lowest = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
-        lowestCommitted = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
-        queuedEvent = null;
-        bestCommittedDeadline = Long.MAX_VALUE;
+        accountRounds = new HashMap<>();
+        for (MiningAccount account : accounts) {
+            // pool of primary account may overwrite targetDeadline
+            long accountTargetDeadline = account.isPrimary() ? targetDeadline : account.getTargetDeadline();
+            long accountId = Convert.parseUnsignedLong(account.getNumericAccountId());
+            accountRounds.put(accountId, new AccountRound(account, accountId, accountTargetDeadline, plots.getSize(accountId)));
+        }
+        resultsInFlight = new HashMap<>();
+        finished = false;
+        runningAgents = new HashSet<>();
+        agentBestDeadlines = new HashMap<>();
+        farmCapacity = plots.getSize();
+
+        queueLatencySum = 0;
+        queueLatencyCount = 0;
+        queueLatencyMax = 0;
     }
 
-    @EventListener
-    public void handleMessage(NetworkStateChangeEvent event) {
-        if (blockNumber < event.getBlockNumber()) {
+    private void process(NetworkStateChangeEvent event) {
+        boolean fork = blockNumber == event.getBlockNumber() && !Arrays.equals(generationSignature, event.getGenerationSignature());
+        if (blockNumber < event.getBlockNumber() || fork) {
             long previousBlockNumber = blockNumber;
+            if (fork) {
+                // results of previous generation signature are worthless, in flight work is dropped by reader, checker and round
+                restart++;
+                totalRestarts++;
+                LOG.info("generation signature of block '" + blockNumber + "' changed, restart round (restarts '" + totalRestarts + "').");
+            } else {
+                restart = 0;
+            }
             this.blockNumber = event.getBlockNumber();
+            this.generationSignature = event.getGenerationSignature();
             this.baseTarget = event.getBaseTarget();
             this.targetDeadline = event.getTargetDeadline();
 
-            long lastBestCommittedDeadline = bestCommittedDeadline;
+            long lastBestCommittedDeadline = getBestCommittedDeadline();
 
             plots = reader.getPlots();
             initNewRound(plots);
 
+            // agents start reading at the same time
+            Map<String, Long> agentCapacities = coordinator.startRound(blockNumber, baseTarget, targetDeadline, event.getGenerationSignature());
+            if (!agentCapacities.isEmpty()) {
+                runningAgents.addAll(agentCapacities.keySet());
+                long agentsCapacity = 0;
+                for (long agentCapacity : agentCapacities.values()) {
+                    agentsCapacity += agentCapacity;
+                }
+                farmCapacity += agentsCapacity;
+                // capacity of agents is reported with the primary account
+                AccountRound primary = !accounts.isEmpty() ? getAccountRound(accounts.get(0)) : null;
+                if (primary != null) {
+                    primary.capacity += agentsCapacity;
+                }
+                LOG.info("      farm of '" + (agentCapacities.size() + 1) + "' hosts, capacity '" + farmCapacity / 1000 / 1000 / 1000 + " GB'");
+            }
+
+            // continue round mined before restart of miner
+            boolean resumed = journal.start(blockNumber, generationSignature);
+            Map<Long, Set<BigInteger>> finishedChunkPartStartNonces = resumed ? journal.getFinishedChunkPartStartNonces() : Collections.emptyMap();
+            int resumedParts = removeRunningChunkPartStartNonces(finishedChunkPartStartNonces);
+
             // reconfigure checker
             checker.reconfigure(blockNumber, event.getGenerationSignature());
 
             // start reader
-            int scoopNumber = calcScoopNumber(event.getBlockNumber(), event.getGenerationSignature());
-            reader.read(previousBlockNumber, blockNumber, scoopNumber, lastBestCommittedDeadline);
+            int scoopNumber = DeadlineCalculator.calcScoopNumber(event.getBlockNumber(), event.getGenerationSignature());
+            reader.read(previousBlockNumber, blockNumber, generationSignature, scoopNumber, lastBestCommittedDeadline, finishedChunkPartStartNonces);
 
             // ui event
-            fireEvent(new RoundStartedEvent(blockNumber, scoopNumber, plots.getSize(), targetDeadline, baseTarget));
+            fireEvent(new RoundStartedEvent(blockNumber, scoopNumber, plots.getSize(), targetDeadline, baseTarget, restart, totalRestarts));
 
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    network.checkLastWinner(blockNumber);
-                }
-            }, 0); // deferred
+            if (resumed) {
+                LOG.info("      resume block '" + blockNumber + "' after restart, '" + resumedParts + "' parts checked before.");
+                resumeCandidates(journal.getCandidates());
+                triggerFinishRoundEvent(blockNumber);
+            }
+
+            if (!fork) {
+                timer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        network.checkLastWinner(blockNumber);
+                    }
+                }, 0); // deferred
+            }
         }
     }
 
-    @EventListener
-    public void handleMessage(CheckerResultEvent event) {
-        if (blockNumber == event.getBlockNumber()) {
-            // check new lowest result
-            if (event.getResult() != null) {
-                BigInteger deadline = event.getResult().divide(BigInteger.valueOf(baseTarget));
-                long calculatedDeadline = deadline.longValue();
-
-                if (event.getResult().compareTo(lowest) < 0) {
-                    lowest = event.getResult();
-                    if (calculatedDeadline < targetDeadline) {
-                        network.commitResult(blockNumber, calculatedDeadline, event.getNonce(), event.getChunkPartStartNonce(), plots.getSize(), event.getResult());
-
-                        // ui event
-                        fireEvent(new RoundSingleResultEvent(event.getBlockNumber(), event.getNonce(), event.getChunkPartStartNonce(), calculatedDeadline,
-                                poolMining));
-                    } else {
-                        // ui event
-                        if (CoreProperties.isShowSkippedDeadlines()) {
-                            fireEvent(new RoundSingleResultSkippedEvent(event.getBlockNumber(), event.getNonce(), event.getChunkPartStartNonce(), calculatedDeadline,
-                                    targetDeadline, poolMining));
-                        }
-                        // chunkPartStartNonce finished
-                        runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
-                        triggerFinishRoundEvent(event.getBlockNumber());
-                    }
-                }
-                // remember next lowest in case that lowest fails to commit
-                else if (calculatedDeadline < targetDeadline
-                        && event.getResult().compareTo(lowestCommitted) < 0
-                        && (queuedEvent == null || event.getResult().compareTo(queuedEvent.getResult()) < 0)) {
-                    if (queuedEvent != null) {
-                        // remove previous queued
-                        runningChunkPartStartNonces.remove(queuedEvent.getChunkPartStartNonce());
-                    }
-                    LOG.info("dl '" + calculatedDeadline + "' queued");
-                    queuedEvent = event;
-
-                    triggerFinishRoundEvent(event.getBlockNumber());
-                } else {
-                    // chunkPartStartNonce finished
-                    runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
-                    triggerFinishRoundEvent(event.getBlockNumber());
-                }
-            } else {
-                LOG.error("CheckerResultEvent result == null");
+    private void process(CheckerResultEvent event) {
+        if (isCurrentRound(event.getBlockNumber(), event.getGenerationSignature())) {
+            // chunkPartStartNonce finished
+            removeRunningChunkPartStartNonces(Collections.singletonMap(event.getAccountId(), Collections.singleton(event.getChunkPartStartNonce())));
+
+            AccountRound accountRound = accountRounds.get(event.getAccountId());
+            if (agentMode) {
+                // coordinator decides what to commit
+                agent.sendResults(event.getBlockNumber(), event.getGenerationSignature(), event.getAccountId(), event.getChunkPartStartNonce(), event.getNonces(), event.getResults());
+            } else if (accountRound != null) {
+                addResults(accountRound, event.getChunkPartStartNonce(), event.getNonces(), event.getResults());
+                commitBestCandidate(accountRound);
+                // after its candidates, a part is only skipped on resume if its results are journaled
+                journal.partFinished(event.getAccountId(), event.getChunkPartStartNonce());
             }
+            triggerFinishRoundEvent(event.getBlockNumber());
         } else {
-            LOG.trace("event for previous block ...");
+            LOG.trace("event for previous round ...");
         }
     }
 
-    @EventListener
-    public void handleMessage(NetworkResultConfirmedEvent event) {
-        if (blockNumber == event.getBlockNumber()) {
-            lowestCommitted = event.getResult();
+    private void process(AgentResultEvent event) {
+        AccountRound accountRound = accountRounds.get(event.getAccountId());
+        if (isCurrentRound(event.getBlockNumber(), event.getGenerationSignature()) && accountRound != null) {
+            long deadline = addResults(accountRound, event.getChunkPartStartNonce(), event.getNonces(), event.getResults());
+            agentBestDeadlines.merge(event.getAgentName(), deadline, Math::min);
+            commitBestCandidate(accountRound);
+        } else if (accountRound == null) {
+            LOG.debug("agent '" + event.getAgentName() + "' sent results of unknown account '" + Convert.toUnsignedLong(event.getAccountId()) + "'");
+        }
+    }
 
-            // if queuedLowest exist and is higher than lowestCommitted, remove queuedLowest
-            if (queuedEvent != null && lowestCommitted.compareTo(queuedEvent.getResult()) < 0) {
-                BigInteger dl = queuedEvent.getResult().divide(BigInteger.valueOf(baseTarget));
-                LOG.debug("dl '" + dl + "' removed from queue");
+    private void process(AgentRoundFinishedEvent event) {
+        if (isCurrentRound(event.getBlockNumber(), event.getGenerationSignature())) {
+            runningAgents.remove(event.getAgentName());
+            Long bestDeadline = agentBestDeadlines.get(event.getAgentName());
+            LOG.info("agent '" + event.getAgentName() + "' finished block '" + event.getBlockNumber() + "' after '"
+                    + (new Date().getTime() - roundStartDate.getTime()) + " ms' (own round time '" + event.getRoundTime() + " ms'), "
+                    + "capacity '" + event.getCapacity() / 1000 / 1000 / 1000 + " GB', best deadline '" + (bestDeadline != null ? bestDeadline : "N/A") + "'");
+            triggerFinishRoundEvent(event.getBlockNumber());
+        }
+    }
+
+    private void process(AgentDisconnectedEvent event) {
+        if (runningAgents != null && runningAgents.remove(event.getAgentName())) {
+            // do not wait for it
+            triggerFinishRoundEvent(blockNumber);
+        }
+    }
 
-                runningChunkPartStartNonces.remove(queuedEvent.getChunkPartStartNonce());
-                queuedEvent = null;
+    // returns the best deadline of the results
+    private long addResults(AccountRound accountRound, BigInteger chunkPartStartNonce, BigInteger[] nonces, BigInteger[] results) {
+        long bestDeadline = Long.MAX_VALUE;
+        for (int i = 0; i < results.length; i++) {
+            BigInteger result = results[i];
+            long calculatedDeadline = result.divide(BigInteger.valueOf(baseTarget)).longValue();
+            bestDeadline = Math.min(bestDeadline, calculatedDeadline);
+            if (calculatedDeadline < accountRound.targetDeadline) {
+                journal.candidateFound(accountRound.accountId, new RoundJournal.Candidate(chunkPartStartNonce, nonces[i], calculatedDeadline, result));
+                addCandidate(accountRound, new Candidate(result, nonces[i], chunkPartStartNonce, calculatedDeadline));
+            } else if (i == 0 && result.compareTo(lowest) < 0 && CoreProperties.isShowSkippedDeadlines()) {
+                // ui event
+                fireEvent(new RoundSingleResultSkippedEvent(blockNumber, nonces[i], chunkPartStartNonce, calculatedDeadline, accountRound.targetDeadline,
+                        accountRound.account.isPoolMining()));
+            }
+            if (result.compareTo(lowest) < 0) {
+                lowest = result;
+            }
+        }
+        return bestDeadline;
+    }
+
+    private void process(NetworkResultConfirmedEvent event) {
+        AccountRound accountRound = blockNumber == event.getBlockNumber() ? resultsInFlight.remove(event.getResult()) : null;
+        if (accountRound != null) {
+            accountRound.resultsInFlight.remove(event.getResult());
+            if (event.getResult().compareTo(accountRound.lowestCommitted) < 0) {
+                accountRound.lowestCommitted = event.getResult();
             }
 
-            runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
+            // candidates above lowestCommitted will never be needed
+            accountRound.candidates.tailMap(accountRound.lowestCommitted, true).clear();
 
-            if (bestCommittedDeadline > event.getDeadline()) {
-                bestCommittedDeadline = event.getDeadline();
+            if (accountRound.bestCommittedDeadline > event.getDeadline()) {
+                accountRound.bestCommittedDeadline = event.getDeadline();
             }
             triggerFinishRoundEvent(event.getBlockNumber());
         }
     }
 
-    @EventListener
-    public void handleMessage(NetworkResultErrorEvent event) {
-        if (blockNumber == event.getBlockNumber()) {
-            // reset lowest to lowestCommitted, as it does not commit successful.
-            lowest = lowestCommitted;
-            // in case that queued result is lower than committedLowest, commit queued again.
-            if (queuedEvent != null && lowestCommitted.compareTo(queuedEvent.getResult()) < 0) {
-                LOG.info("commit queued dl ...");
-                handleMessage(queuedEvent);
-
-                queuedEvent = null;
-            }
+    private void process(NetworkResultErrorEvent event) {
+        AccountRound accountRound = blockNumber == event.getBlockNumber() ? resultsInFlight.remove(event.getResult()) : null;
+        if (accountRound != null) {
+            accountRound.resultsInFlight.remove(event.getResult());
 
-            runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
+            // commit next best at once, if still better than committed
+            if (!accountRound.candidates.isEmpty()) {
+                LOG.info("commit next best dl ...");
+            }
+            commitBestCandidate(accountRound);
             triggerFinishRoundEvent(event.getBlockNumber());
         }
     }
 
-    @EventListener
-    public void handleMessage(ReaderStoppedEvent event) {
+    private void process(ReaderStoppedEvent event) {
         System.gc();
         fireEvent(new RoundStoppedEvent(event.getBlockNumber(), event.getLastBestCommittedDeadline(), event.getCapacity(), event.getRemainingCapacity(),
                 event.getElapsedTime()));
     }
 
-    private void triggerFinishRoundEvent(long blockNumber) {
-        if (finishedBlockNumber < blockNumber) {
-            if (runningChunkPartStartNonces.isEmpty()) {
-                onRoundFinish(blockNumber);
+    private void process(ReaderPartsSkippedEvent event) {
+        if (isCurrentRound(event.getBlockNumber(), event.getGenerationSignature())) {
+            // skipped parts will never be checked
+            removeRunningChunkPartStartNonces(event.getChunkPartStartNonces());
+            skippedCapacity += event.getCapacity();
+            LOG.debug("round time budget exceeded, skipped '" + event.getCapacity() / 1000 / 1000 / 1000 + " GB' of '" + event.getDirectory() + "'");
+            triggerFinishRoundEvent(event.getBlockNumber());
+        }
+    }
+
+    // returns number of parts removed
+    private int removeRunningChunkPartStartNonces(Map<Long, ? extends Collection<BigInteger>> chunkPartStartNonces) {
+        int removed = 0;
+        for (Map.Entry<Long, ? extends Collection<BigInteger>> entry : chunkPartStartNonces.entrySet()) {
+            Set<BigInteger> accountChunkPartStartNonces = runningChunkPartStartNonces.get(entry.getKey());
+            if (accountChunkPartStartNonces != null) {
+                for (BigInteger chunkPartStartNonce : entry.getValue()) {
+                    if (accountChunkPartStartNonces.remove(chunkPartStartNonce)) {
+                        removed++;
+                    }
+                }
+                if (accountChunkPartStartNonces.isEmpty()) {
+                    runningChunkPartStartNonces.remove(entry.getKey());
+                }
             }
-            // commit queued if exists ... and it is the only remaining in runningChunkPartStartNonces
-            else if (queuedEvent != null && runningChunkPartStartNonces.size() == 1 && runningChunkPartStartNonces.contains(queuedEvent.getChunkPartStartNonce())) {
-                handleMessage(queuedEvent);
-                queuedEvent = null;
+        }
+        return removed;
+    }
+
+    // results found before restart, best one is committed again at once
+    private void resumeCandidates(Map<Long, List<RoundJournal.Candidate>> journalCandidates) {
+        for (Map.Entry<Long, List<RoundJournal.Candidate>> entry : journalCandidates.entrySet()) {
+            AccountRound accountRound = accountRounds.get(entry.getKey());
+            if (accountRound != null) {
+                for (RoundJournal.Candidate candidate : entry.getValue()) {
+                    if (candidate.getDeadline() < accountRound.targetDeadline) {
+                        addCandidate(accountRound, new Candidate(candidate.getResult(), candidate.getNonce(), candidate.getChunkPartStartNonce(),
+                                candidate.getDeadline()));
+                    }
+                }
+                commitBestCandidate(accountRound);
             }
         }
     }
 
+    private void addCandidate(AccountRound accountRound, Candidate candidate) {
+        if (candidate.result.compareTo(accountRound.lowestCommitted) < 0) {
+            accountRound.candidates.put(candidate.result, candidate);
+            if (accountRound.candidates.size() > MAX_CANDIDATES) {
+                accountRound.candidates.pollLastEntry();
+            }
+        }
+    }
+
+    private void commitBestCandidate(AccountRound accountRound) {
+        // lowest result committed or waiting for confirmation
+        BigInteger lowestAttempted = accountRound.resultsInFlight.isEmpty()
+                ? accountRound.lowestCommitted : accountRound.resultsInFlight.first().min(accountRound.lowestCommitted);
+        Map.Entry<BigInteger, Candidate> best = accountRound.candidates.firstEntry();
+        if (best != null && best.getKey().compareTo(lowestAttempted) < 0) {
+            accountRound.candidates.pollFirstEntry();
+            Candidate candidate = best.getValue();
+            accountRound.resultsInFlight.add(candidate.result);
+            resultsInFlight.put(candidate.result, accountRound);
+            if (!accountRound.account.isPrimary()) {
+                LOG.debug("commit dl '" + candidate.deadline + "' of account '" + accountRound.account.getName() + "'");
+            }
+            BigInteger superseded = network.commitResult(accountRound.account, blockNumber, candidate.deadline, candidate.nonce,
+                    candidate.chunkPartStartNonce, accountRound.capacity, candidate.result);
+            if (superseded != null) {
+                // a better result replaced it in the submit queue, never confirmed
+                resultsInFlight.remove(superseded);
+                accountRound.resultsInFlight.remove(superseded);
+            }
+
+            // ui event
+            fireEvent(new RoundSingleResultEvent(blockNumber, candidate.nonce, candidate.chunkPartStartNonce, candidate.deadline,
+                    accountRound.account.isPoolMining()));
+        }
+    }
+
+    private boolean isCurrentRound(long blockNumber, byte[] generationSignature) {
+        return this.blockNumber == blockNumber && Arrays.equals(this.generationSignature, generationSignature);
+    }
+
+    private AccountRound getAccountRound(MiningAccount account) {
+        return accountRounds.get(Convert.parseUnsignedLong(account.getNumericAccountId()));
+    }
+
+    // best of all accounts
+    private long getBestCommittedDeadline() {
+        long bestCommittedDeadline = Long.MAX_VALUE;
+        if (accountRounds != null) {
+            for (AccountRound accountRound : accountRounds.values()) {
+                bestCommittedDeadline = Math.min(bestCommittedDeadline, accountRound.bestCommittedDeadline);
+            }
+        }
+        return bestCommittedDeadline;
+    }
+
+    private void triggerFinishRoundEvent(long blockNumber) {
+        if (!finished && this.blockNumber == blockNumber && runningChunkPartStartNonces.isEmpty() && resultsInFlight.isEmpty() && runningAgents.isEmpty()) {
+            onRoundFinish(blockNumber);
+        }
+    }
+
     private void onRoundFinish(long blockNumber) {
-        finishedBlockNumber = blockNumber;
+        finished = true;
         long elapsedRoundTime = new Date().getTime() - roundStartDate.getTime();
+        long queueLatencyAvgMicros = queueLatencyCount > 0 ? TimeUnit.NANOSECONDS.toMicros(queueLatencySum / queueLatencyCount) : 0;
+        long queueLatencyMaxMicros = TimeUnit.NANOSECONDS.toMicros(queueLatencyMax);
+        long capacity = plots.getSize();
+        long minedCapacity = capacity - skippedCapacity;
+        if (agentMode) {
+            agent.roundFinished(blockNumber, generationSignature, plots.getSize(), elapsedRoundTime);
+        }
         triggerGarbageCollection();
         timer.schedule(new TimerTask() {
             @Override
             public void run() {
-                fireEvent(new RoundFinishedEvent(blockNumber, bestCommittedDeadline, elapsedRoundTime));
+                fireEvent(new RoundFinishedEvent(blockNumber, getBestCommittedDeadline(), elapsedRoundTime, queueLatencyAvgMicros, queueLatencyMaxMicros,
+                        capacity, minedCapacity));
             }
         }, 250); // fire deferred
 
@@ -309,19 +641,38 @@ public class Round {
         roundPool.execute(roundFireEventTask);
     }
 
-    private static int calcScoopNumber(long blockNumber, byte[] generationSignature) {
-        if (blockNumber > 0 && generationSignature != null) {
-            ByteBuffer buf = ByteBuffer.allocate(32 + 8);
-            buf.put(generationSignature);
-            buf.putLong(blockNumber);
-
-            // generate new scoop number
-            Shabal256 md = new Shabal256();
-            md.update(buf.array());
+    private static final class AccountRound {
+        private final MiningAccount account;
+        private final long accountId;
+        private final long targetDeadline;
+        // reported to pool
+        private long capacity;
+
+        // below target results not committed yet, fallback if a commit fails
+        private final TreeMap<BigInteger, Candidate> candidates = new TreeMap<>();
+        private final TreeSet<BigInteger> resultsInFlight = new TreeSet<>();
+        private BigInteger lowestCommitted = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
+        private long bestCommittedDeadline = Long.MAX_VALUE;
+
+        private AccountRound(MiningAccount account, long accountId, long targetDeadline, long capacity) {
+            this.account = account;
+            this.accountId = accountId;
+            this.targetDeadline = targetDeadline;
+            this.capacity = capacity;
+        }
+    }
 
-            BigInteger hashnum = new BigInteger(1, md.digest());
-            return hashnum.mod(BigInteger.valueOf(MiningPlot.SCOOPS_PER_PLOT)).intValue();
+    private static final class Candidate {
+        private final BigInteger result;
+        private final BigInteger nonce;
+        private final BigInteger chunkPartStartNonce;
+        private final long deadline;
+
+        private Candidate(BigInteger result, BigInteger nonce, BigInteger chunkPartStartNonce, long deadline) {
+            this.result = result;
+            this.nonce = nonce;
+            this.chunkPartStartNonce = chunkPartStartNonce;
+            this.deadline = deadline;
         }
-        return 0;
     }
 }
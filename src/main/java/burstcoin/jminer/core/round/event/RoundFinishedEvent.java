@@ -31,6 +31,10 @@ public class RoundFinishedEvent extends ApplicationEvent {
     private long blockNumber;
     private long bestCommittedDeadline;
     private long roundTime;
+    private long queueLatencyAvg;
+    private long queueLatencyMax;
+    private long capacity;
+    private long minedCapacity;
 
     /**
      * Instantiates a new Round finished event.
@@ -38,12 +42,21 @@ public class RoundFinishedEvent extends ApplicationEvent {
      * @param blockNumber           the block number
      * @param bestCommittedDeadline the best committed deadline
      * @param roundTime             the round time
+     * @param queueLatencyAvg       the avg. time in microseconds events waited for the round thread
+     * @param queueLatencyMax       the max. time in microseconds events waited for the round thread
+     * @param capacity              the capacity of own drives
+     * @param minedCapacity         the capacity of own drives read, less than capacity if round time budget was exceeded
      */
-    public RoundFinishedEvent(long blockNumber, long bestCommittedDeadline, long roundTime) {
+    public RoundFinishedEvent(long blockNumber, long bestCommittedDeadline, long roundTime, long queueLatencyAvg, long queueLatencyMax, long capacity,
+                              long minedCapacity) {
         super(blockNumber);
         this.blockNumber = blockNumber;
         this.bestCommittedDeadline = bestCommittedDeadline;
         this.roundTime = roundTime;
+        this.queueLatencyAvg = queueLatencyAvg;
+        this.queueLatencyMax = queueLatencyMax;
+        this.capacity = capacity;
+        this.minedCapacity = minedCapacity;
     }
 
     /**
@@ -72,4 +85,40 @@ public class RoundFinishedEvent extends ApplicationEvent {
     public long getRoundTime() {
         return roundTime;
     }
+
+    /**
+     * Gets avg. time in microseconds events waited for the round thread.
+     *
+     * @return the queue latency avg
+     */
+    public long getQueueLatencyAvg() {
+        return queueLatencyAvg;
+    }
+
+    /**
+     * Gets max. time in microseconds events waited for the round thread.
+     *
+     * @return the queue latency max
+     */
+    public long getQueueLatencyMax() {
+        return queueLatencyMax;
+    }
+
+    /**
+     * Gets capacity of own drives.
+     *
+     * @return the capacity
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets capacity of own drives read, less than capacity if round time budget was exceeded.
+     *
+     * @return the mined capacity
+     */
+    public long getMinedCapacity() {
+        return minedCapacity;
+    }
 }
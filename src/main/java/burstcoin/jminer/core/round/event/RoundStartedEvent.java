@@ -34,6 +34,8 @@ public class RoundStartedEvent extends ApplicationEvent {
     private long targetDeadline;
     private long baseTarget;
     private long blockNumber;
+    private int restart;
+    private long totalRestarts;
 
     /**
      * Instantiates a new Round started event.
@@ -43,8 +45,10 @@ public class RoundStartedEvent extends ApplicationEvent {
      * @param capacity       the capacity
      * @param targetDeadline the target deadline
      * @param baseTarget     the base target
+     * @param restart        the restarts of this block caused by forks, 0 on first start
+     * @param totalRestarts  the restarts since miner started
      */
-    public RoundStartedEvent(long blockNumber, long scoopNumber, long capacity, long targetDeadline, long baseTarget) {
+    public RoundStartedEvent(long blockNumber, long scoopNumber, long capacity, long targetDeadline, long baseTarget, int restart, long totalRestarts) {
         super(blockNumber);
 
         this.blockNumber = blockNumber;
@@ -52,6 +56,8 @@ public class RoundStartedEvent extends ApplicationEvent {
         this.capacity = capacity;
         this.targetDeadline = targetDeadline;
         this.baseTarget = baseTarget;
+        this.restart = restart;
+        this.totalRestarts = totalRestarts;
     }
 
     /**
@@ -98,4 +104,22 @@ public class RoundStartedEvent extends ApplicationEvent {
     public long getBaseTarget() {
         return baseTarget;
     }
+
+    /**
+     * Gets restart, the restarts of this block caused by forks.
+     *
+     * @return the restart, 0 on first start
+     */
+    public int getRestart() {
+        return restart;
+    }
+
+    /**
+     * Gets total restarts.
+     *
+     * @return the restarts since miner started
+     */
+    public long getTotalRestarts() {
+        return totalRestarts;
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.round.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue for many producers and exactly one consumer thread.
+ * <p>
+ * Producers claim a sequence by CAS and publish their element into the slot, the consumer takes slots in sequence
+ * order and parks while the queue is empty.
+ * <p>
+ * Back-pressure: other threads offering to a full queue wait until the consumer made space, so producers (reader,
+ * checker, network callbacks) are slowed down to the speed of the consumer. The consumer itself never waits, it would
+ * wait for itself; its elements go to an unbounded overflow instead, if the queue is full. Overflow is taken first, a
+ * queue kept full by producers does not starve it.
+ *
+ * @param <E> the element type
+ */
+public class MpscRingBuffer<E> {
+    // consumer re-checks the queue at least that often, in case an unpark got lost
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    // enqueue time per slot, written before the slot is published
+    private final long[] enqueueTimes;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private volatile Thread consumer;
+    private volatile boolean consumerWaiting;
+
+    // only accessed by consumer thread
+    private final ArrayDeque<E> overflow = new ArrayDeque<>();
+    private final ArrayDeque<Long> overflowTimes = new ArrayDeque<>();
+
+    /**
+     * Instantiates a new ring buffer.
+     *
+     * @param minCapacity the min capacity, rounded up to the next power of two
+     */
+    public MpscRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        mask = capacity - 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        enqueueTimes = new long[capacity];
+    }
+
+    /**
+     * Add element, waits while the queue is full, except called by the consumer. Safe to be called by multiple threads.
+     *
+     * @param element the element
+     */
+    public void offer(E element) {
+        boolean isConsumer = Thread.currentThread() == consumer;
+        if (isConsumer && !overflow.isEmpty()) {
+            // keep order of consumer elements
+            addOverflow(element);
+            return;
+        }
+        long sequence;
+        while (true) {
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                if (isConsumer) {
+                    addOverflow(element);
+                    return;
+                }
+                // full, consumer is behind
+                LockSupport.parkNanos(1000);
+            } else if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int index = (int) sequence & mask;
+        enqueueTimes[index] = System.nanoTime();
+        slots.set(index, element);
+
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Take next element, waits while the queue is empty. Must only be called by the consumer thread.
+     *
+     * @param latencyNanos receives the time the element waited in the queue at index 0
+     * @return the element
+     * @throws InterruptedException if the consumer got interrupted
+     */
+    public E take(long[] latencyNanos)
+            throws InterruptedException {
+        consumer = Thread.currentThread();
+        if (!overflow.isEmpty()) {
+            latencyNanos[0] = System.nanoTime() - overflowTimes.poll();
+            return overflow.poll();
+        }
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+        E element;
+        while ((element = slots.get(index)) == null) {
+            // slot not published yet, either empty or producer between claim and publish
+            consumerWaiting = true;
+            if (slots.get(index) == null) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+            consumerWaiting = false;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        latencyNanos[0] = System.nanoTime() - enqueueTimes[index];
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+        return element;
+    }
+
+    private void addOverflow(E element) {
+        overflow.add(element);
+        overflowTimes.add(System.nanoTime());
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.round.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Journal of the current round on disk, a restarted miner continues the round instead of reading and submitting from scratch.
+ * <p>
+ * Append only, a header (height, generation signature) followed by one record per checked part and per result below
+ * targetDeadline. A record torn by a crash is dropped on load. Only accessed by the round thread.
+ */
+public class RoundJournal {
+    private static final Logger LOG = LoggerFactory.getLogger(RoundJournal.class);
+
+    private static final int MAGIC = 0x4a4d524a;
+    private static final byte PART = 1;
+    private static final byte CANDIDATE = 2;
+
+    private static final BigInteger UNSIGNED_OFFSET = BigInteger.ONE.shiftLeft(64);
+
+    private final Path path;
+    private DataOutputStream out;
+
+    // loaded from disk, valid until next start
+    private long height;
+    private byte[] generationSignature;
+    private long validLength;
+    private final Map<Long, Set<BigInteger>> finishedChunkPartStartNonces = new HashMap<>();
+    private final Map<Long, List<Candidate>> candidates = new HashMap<>();
+
+    /**
+     * Instantiates a new Round journal.
+     *
+     * @param path the journal file, null disables the journal
+     */
+    public RoundJournal(String path) {
+        this.path = path != null ? Paths.get(path) : null;
+    }
+
+    /**
+     * Load journal of the round mined before restart.
+     */
+    public void load() {
+        if (path == null || !Files.isReadable(path)) {
+            return;
+        }
+        try (InputStream inputStream = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+            if (in.readInt() != MAGIC) {
+                LOG.warn("Ignored round journal '" + path + "', unknown format.");
+                return;
+            }
+            long height = in.readLong();
+            byte[] generationSignature = new byte[32];
+            in.readFully(generationSignature);
+            this.height = height;
+            this.generationSignature = generationSignature;
+            validLength = 4 + 8 + 32;
+
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    long accountId = in.readLong();
+                    BigInteger chunkPartStartNonce = unsigned(in.readLong());
+                    if (type == PART) {
+                        finishedChunkPartStartNonces.computeIfAbsent(accountId, key -> new HashSet<>()).add(chunkPartStartNonce);
+                        validLength += 1 + 8 + 8;
+                    } else if (type == CANDIDATE) {
+                        BigInteger nonce = unsigned(in.readLong());
+                        long deadline = in.readLong();
+                        byte[] result = new byte[in.readUnsignedByte()];
+                        in.readFully(result);
+                        candidates.computeIfAbsent(accountId, key -> new ArrayList<>())
+                                .add(new Candidate(chunkPartStartNonce, nonce, deadline, new BigInteger(1, result)));
+                        validLength += 1 + 8 + 8 + 8 + 8 + 1 + result.length;
+                    } else {
+                        break;
+                    }
+                }
+            } catch (EOFException e) {
+                // end of journal, or last record torn by crash
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to load round journal '" + path + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start journal of a round, the journal on disk is continued if it belongs to the same round.
+     *
+     * @param height the height
+     * @param generationSignature the generation signature
+     * @return true if round is resumed, finished parts and candidates of the journal are available
+     */
+    public boolean start(long height, byte[] generationSignature) {
+        if (path == null) {
+            return false;
+        }
+        boolean resumed = out == null && this.height == height && Arrays.equals(this.generationSignature, generationSignature);
+        if (!resumed) {
+            finishedChunkPartStartNonces.clear();
+            candidates.clear();
+        }
+        close();
+
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            if (resumed) {
+                // drop torn record, appended records would not be readable behind it
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND)));
+            } else {
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+                out.writeInt(MAGIC);
+                out.writeLong(height);
+                out.write(generationSignature, 0, 32);
+                out.flush();
+            }
+            this.height = height;
+            this.generationSignature = generationSignature;
+        } catch (IOException e) {
+            LOG.warn("Unable to write round journal '" + path + "': " + e.getMessage());
+            close();
+        }
+        return resumed;
+    }
+
+    /**
+     * Gets chunk part start nonces checked before restart, if round was resumed.
+     *
+     * @return the chunk part start nonces, by numeric account id
+     */
+    public Map<Long, Set<BigInteger>> getFinishedChunkPartStartNonces() {
+        return finishedChunkPartStartNonces;
+    }
+
+    /**
+     * Gets results below targetDeadline found before restart, if round was resumed.
+     *
+     * @return the candidates, by numeric account id
+     */
+    public Map<Long, List<Candidate>> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Part checked, its results are handled.
+     *
+     * @param accountId the numeric account id
+     * @param chunkPartStartNonce the chunk part start nonce
+     */
+    public void partFinished(long accountId, BigInteger chunkPartStartNonce) {
+        if (out != null) {
+            try {
+                out.writeByte(PART);
+                out.writeLong(accountId);
+                out.writeLong(chunkPartStartNonce.longValue());
+                out.flush();
+            } catch (IOException e) {
+                failed(e);
+            }
+        }
+    }
+
+    /**
+     * Result below targetDeadline found, written before it is committed.
+     *
+     * @param accountId the numeric account id
+     * @param candidate the candidate
+     */
+    public void candidateFound(long accountId, Candidate candidate) {
+        if (out != null) {
+            try {
+                byte[] result = candidate.result.toByteArray();
+                out.writeByte(CANDIDATE);
+                out.writeLong(accountId);
+                out.writeLong(candidate.chunkPartStartNonce.longValue());
+                out.writeLong(candidate.nonce.longValue());
+                out.writeLong(candidate.deadline);
+                out.writeByte(result.length);
+                out.write(result);
+                out.flush();
+            } catch (IOException e) {
+                failed(e);
+            }
+        }
+    }
+
+    public void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // nothing to flush anymore
+            }
+            out = null;
+        }
+    }
+
+    private void failed(IOException e) {
+        LOG.warn("Unable to write round journal '" + path + "', journal of block '" + height + "' stopped: " + e.getMessage());
+        close();
+    }
+
+    private static BigInteger unsigned(long value) {
+        BigInteger bigInteger = BigInteger.valueOf(value);
+        return value < 0 ? bigInteger.add(UNSIGNED_OFFSET) : bigInteger;
+    }
+
+    /**
+     * Result below targetDeadline.
+     */
+    public static final class Candidate {
+        private final BigInteger chunkPartStartNonce;
+        private final BigInteger nonce;
+        private final long deadline;
+        private final BigInteger result;
+
+        public Candidate(BigInteger chunkPartStartNonce, BigInteger nonce, long deadline, BigInteger result) {
+            this.chunkPartStartNonce = chunkPartStartNonce;
+            this.nonce = nonce;
+            this.deadline = deadline;
+            this.result = result;
+        }
+
+        public BigInteger getChunkPartStartNonce() {
+            return chunkPartStartNonce;
+        }
+
+        public BigInteger getNonce() {
+            return nonce;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public BigInteger getResult() {
+            return result;
+        }
+    }
+}
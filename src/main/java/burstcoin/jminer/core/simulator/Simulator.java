@@ -0,0 +1,352 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.simulator;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.util.DeadlineCalculator;
+import burstcoin.jminer.core.network.util.ApiServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nxt.util.Convert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated pool/wallet server, to test and measure the miner offline.
+ * Creates blocks in the configured intervals and calculates the deadlines of submitted nonces.
+ */
+@Component
+@Scope("singleton")
+public class Simulator {
+    private static final Logger LOG = LoggerFactory.getLogger(Simulator.class);
+
+    // burst genesis 2014-08-11 02:00:00 UTC
+    private static final long EPOCH_BEGINNING = 1407722400000L;
+    private static final long LONG_POLL_HOLD = 30000;
+    private static final int MAX_BLOCKS = 360;
+    private static final String GENERATOR_RS = "BURST-SIMU-LATE-DBLK-22222";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ApiServer server;
+    private ScheduledExecutorService scheduler;
+    private Random random;
+
+    private final Object lock = new Object();
+    // forged blocks by height
+    private final TreeMap<Long, SimulatedBlock> blocks = new TreeMap<>();
+    private final List<AsyncContext> longPolls = new ArrayList<>();
+    private SimulatedBlock current;
+    private int blockTimeIndex;
+
+    @PostConstruct
+    protected void postConstruct() {
+        if (!CoreProperties.isSimulator()) {
+            return;
+        }
+        random = new Random(CoreProperties.getSimulatorSeed());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        nextBlock();
+
+        server = new ApiServer("simulator-http", CoreProperties.getSimulatorPort(), objectMapper, this::handle);
+        try {
+            server.start();
+            LOG.info("Simulator started on port '" + CoreProperties.getSimulatorPort() + "', blocks every '" + CoreProperties.getSimulatorBlockTimes() + "' ms.");
+        } catch (Exception e) {
+            LOG.error("Simulator failed to start: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    protected void preDestroy() {
+        if (server != null) {
+            server.stop();
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void nextBlock() {
+        long now = System.currentTimeMillis();
+        byte[] generationSignature = new byte[32];
+        random.nextBytes(generationSignature);
+
+        List<AsyncContext> waiting;
+        synchronized (lock) {
+            long height = 1;
+            if (current != null) {
+                LOG.info(current.getStats(now));
+                current.timestamp = now;
+                blocks.put(current.height, current);
+                while (blocks.size() > MAX_BLOCKS) {
+                    blocks.pollFirstEntry();
+                }
+                height = current.height + 1;
+            }
+            current = new SimulatedBlock(height, generationSignature, CoreProperties.getSimulatorBaseTarget(), now);
+            waiting = new ArrayList<>(longPolls);
+            longPolls.clear();
+        }
+        // new block ends all long polls
+        for (AsyncContext asyncContext : waiting) {
+            respondMiningInfo(asyncContext);
+        }
+
+        List<Long> blockTimes = CoreProperties.getSimulatorBlockTimes();
+        scheduler.schedule(this::nextBlock, blockTimes.get(blockTimeIndex++ % blockTimes.size()), TimeUnit.MILLISECONDS);
+    }
+
+    private void answer(AsyncContext asyncContext, String requestType) {
+        if (ThreadLocalRandom.current().nextInt(100) < CoreProperties.getSimulatorErrorPercent()) {
+            respond(asyncContext, HttpServletResponse.SC_SERVICE_UNAVAILABLE, ApiServer.error(503, "simulated error"));
+            return;
+        }
+
+        HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+        // async requests have no timeout, every request has to be answered
+        try {
+            switch (requestType != null ? requestType : "") {
+                case "getMiningInfo":
+                    miningInfo(asyncContext, request.getParameter("longPoll"));
+                    break;
+                case "submitNonce":
+                    submitNonce(asyncContext, request.getParameter("nonce"), request.getParameter("accountId"));
+                    break;
+                case "getBlockchainStatus":
+                    respond(asyncContext, HttpServletResponse.SC_OK, blockchainStatus());
+                    break;
+                case "getBlock":
+                    respond(asyncContext, HttpServletResponse.SC_OK, block(request.getParameter("block")));
+                    break;
+                case "getAccountBlocks":
+                    Map<String, Object> accountBlocks = new LinkedHashMap<>();
+                    accountBlocks.put("blocks", Collections.emptyList());
+                    accountBlocks.put("requestProcessingTime", 0);
+                    respond(asyncContext, HttpServletResponse.SC_OK, accountBlocks);
+                    break;
+                default:
+                    respond(asyncContext, HttpServletResponse.SC_OK, ApiServer.error(1, "Incorrect request"));
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Simulator failed to answer '" + requestType + "': " + e.getMessage());
+            respond(asyncContext, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ApiServer.error(500, "simulator error"));
+        }
+    }
+
+    private void miningInfo(AsyncContext asyncContext, String longPoll) {
+        synchronized (lock) {
+            if (longPoll != null && parseHeight(longPoll) >= current.height) {
+                // hold until next block
+                longPolls.add(asyncContext);
+                scheduler.schedule(() -> {
+                    boolean held;
+                    synchronized (lock) {
+                        held = longPolls.remove(asyncContext);
+                    }
+                    if (held) {
+                        respondMiningInfo(asyncContext);
+                    }
+                }, LONG_POLL_HOLD, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        respondMiningInfo(asyncContext);
+    }
+
+    private void respondMiningInfo(AsyncContext asyncContext) {
+        SimulatedBlock block;
+        synchronized (lock) {
+            block = current;
+            block.miningInfoDelivered(System.currentTimeMillis());
+        }
+        Map<String, Object> miningInfo = new LinkedHashMap<>();
+        miningInfo.put("generationSignature", Convert.toHexString(block.generationSignature));
+        miningInfo.put("baseTarget", String.valueOf(block.baseTarget));
+        miningInfo.put("height", String.valueOf(block.height));
+        miningInfo.put("requestProcessingTime", 0);
+        respond(asyncContext, HttpServletResponse.SC_OK, miningInfo);
+    }
+
+    private void submitNonce(AsyncContext asyncContext, String nonce, String accountId) {
+        // solo submits send passphrase, deadline is calculated for configured account
+        String account = accountId != null ? accountId : CoreProperties.getNumericAccountId();
+        long numericAccountId;
+        long numericNonce;
+        try {
+            numericAccountId = Long.parseUnsignedLong(account);
+            numericNonce = Long.parseUnsignedLong(nonce);
+        } catch (NumberFormatException e) {
+            respond(asyncContext, HttpServletResponse.SC_OK, ApiServer.error(3, "Missing or invalid nonce or account"));
+            return;
+        }
+
+        SimulatedBlock block;
+        synchronized (lock) {
+            block = current;
+        }
+        long deadline = block.calculateDeadline(numericAccountId, numericNonce);
+        synchronized (lock) {
+            block.submitted(System.currentTimeMillis(), deadline);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("result", "success");
+        result.put("deadline", deadline);
+        result.put("requestProcessingTime", 0);
+        respond(asyncContext, HttpServletResponse.SC_OK, result);
+    }
+
+    private Map<String, Object> blockchainStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        synchronized (lock) {
+            status.put("lastBlock", String.valueOf(current.height - 1));
+            status.put("numberOfBlocks", current.height);
+        }
+        status.put("application", "jminer-simulator");
+        status.put("time", (System.currentTimeMillis() - EPOCH_BEGINNING) / 1000);
+        status.put("requestProcessingTime", 0);
+        return status;
+    }
+
+    private Map<String, Object> block(String blockId) {
+        SimulatedBlock block = null;
+        try {
+            synchronized (lock) {
+                block = blockId != null ? blocks.get(Long.valueOf(blockId)) : null;
+            }
+        } catch (NumberFormatException e) {
+            LOG.debug("Simulator got invalid block id '" + blockId + "'");
+        }
+        if (block == null) {
+            return ApiServer.error(5, "Unknown block");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("block", String.valueOf(block.height));
+        result.put("height", block.height);
+        result.put("previousBlock", String.valueOf(block.height - 1));
+        result.put("generationSignature", Convert.toHexString(block.generationSignature));
+        result.put("baseTarget", String.valueOf(block.baseTarget));
+        result.put("generatorRS", GENERATOR_RS);
+        result.put("timestamp", (int) ((block.timestamp - EPOCH_BEGINNING) / 1000));
+        result.put("requestProcessingTime", 0);
+        return result;
+    }
+
+    private void handle(AsyncContext asyncContext, String requestType) {
+        long latency = CoreProperties.getSimulatorLatency();
+        if (latency > 0) {
+            // answer on server threads, deadline calculation is expensive
+            scheduler.schedule(() -> server.execute(() -> answer(asyncContext, requestType)), latency, TimeUnit.MILLISECONDS);
+        } else {
+            answer(asyncContext, requestType);
+        }
+    }
+
+    private static long parseHeight(String height) {
+        try {
+            return Long.parseLong(height);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void respond(AsyncContext asyncContext, int status, Map<String, Object> content) {
+        server.respond(asyncContext, status, content);
+    }
+
+    private static final class SimulatedBlock {
+        private final long height;
+        private final byte[] generationSignature;
+        private final long baseTarget;
+        private final int scoopNumber;
+        private final long startTime;
+        private long timestamp;
+
+        // stats
+        private long firstMiningInfoTime;
+        private long firstSubmitTime;
+        private long lastSubmitTime;
+        private int submits;
+        private long bestDeadline = Long.MAX_VALUE;
+
+        private SimulatedBlock(long height, byte[] generationSignature, long baseTarget, long startTime) {
+            this.height = height;
+            this.generationSignature = generationSignature;
+            this.baseTarget = baseTarget;
+            this.startTime = startTime;
+            scoopNumber = DeadlineCalculator.calcScoopNumber(height, generationSignature);
+        }
+
+        private long calculateDeadline(long accountId, long nonce) {
+            return DeadlineCalculator.calcDeadline(accountId, nonce, generationSignature, scoopNumber, baseTarget);
+        }
+
+        private void miningInfoDelivered(long time) {
+            if (firstMiningInfoTime == 0) {
+                firstMiningInfoTime = time;
+            }
+        }
+
+        private void submitted(long time, long deadline) {
+            if (firstSubmitTime == 0) {
+                firstSubmitTime = time;
+            }
+            lastSubmitTime = time;
+            submits++;
+            bestDeadline = Math.min(bestDeadline, deadline);
+        }
+
+        private String getStats(long endTime) {
+            long submitTime = lastSubmitTime - firstSubmitTime;
+            return "simulator block '" + height + "' took '" + (endTime - startTime) / 1000 + " sec.'"
+                    + ", first mining info after '" + (firstMiningInfoTime > 0 ? (firstMiningInfoTime - startTime) + " ms'" : "N/A'")
+                    + ", first submit after '" + (firstSubmitTime > 0 ? (firstSubmitTime - startTime) + " ms'" : "N/A'")
+                    + ", submits '" + submits + "'" + (submitTime > 0 ? " (" + (submits * 1000L / submitTime) + "/s)" : "")
+                    + ", best deadline '" + (submits > 0 ? bestDeadline : "N/A") + "'";
+        }
+    }
+}
@@ -2,7 +2,6 @@ package pocminer.generate;
 
 import fr.cryptohash.Shabal256;
 
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class MiningPlot {
@@ -17,16 +16,29 @@ public class MiningPlot {
     public byte[] data = new byte[PLOT_SIZE];
 
     public MiningPlot(long addr, long nonce) {
-        ByteBuffer base_buffer = ByteBuffer.allocate(16);
-        base_buffer.putLong(addr);
-        base_buffer.putLong(nonce);
-        byte[] base = base_buffer.array();
-        Shabal256 md = new Shabal256();
-        byte[] gendata = new byte[PLOT_SIZE + base.length];
-        System.arraycopy(base, 0, gendata, PLOT_SIZE, base.length);
+        byte[] gendata = new byte[PLOT_SIZE + 16];
+        plot(new Shabal256(), gendata, new byte[HASH_SIZE], addr, nonce);
+        System.arraycopy(gendata, 0, data, 0, PLOT_SIZE);
+    }
+
+    /**
+     * Plots a nonce into buffers reused by the caller, nothing is allocated per nonce.
+     * Afterwards gendata[0, PLOT_SIZE) holds the plotted nonce.
+     *
+     * @param md        the shabal256 of the calling thread
+     * @param gendata   buffer of PLOT_SIZE + 16 bytes
+     * @param finalhash buffer of HASH_SIZE bytes
+     * @param addr      the numeric account id
+     * @param nonce     the nonce
+     */
+    public static void plot(Shabal256 md, byte[] gendata, byte[] finalhash, long addr, long nonce) {
+        for (int i = 0; i < 8; i++) {
+            gendata[PLOT_SIZE + i] = (byte) (addr >>> (56 - i * 8));
+            gendata[PLOT_SIZE + 8 + i] = (byte) (nonce >>> (56 - i * 8));
+        }
         for (int i = PLOT_SIZE; i > 0; i -= HASH_SIZE) {
             md.reset();
-            int len = PLOT_SIZE + base.length - i;
+            int len = PLOT_SIZE + 16 - i;
             if (len > HASH_CAP) {
                 len = HASH_CAP;
             }
@@ -34,10 +46,10 @@ public class MiningPlot {
             md.digest(gendata, i - HASH_SIZE, HASH_SIZE);
         }
         md.reset();
-        md.update(gendata);
-        byte[] finalhash = md.digest();
+        md.update(gendata, 0, PLOT_SIZE + 16);
+        md.digest(finalhash, 0, HASH_SIZE);
         for (int i = 0; i < PLOT_SIZE; i++) {
-            data[i] = (byte) (gendata[i] ^ finalhash[i % HASH_SIZE]);
+            gendata[i] = (byte) (gendata[i] ^ finalhash[i % HASH_SIZE]);
         }
     }
 